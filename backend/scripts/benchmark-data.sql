@@ -0,0 +1,2 @@
+-- Seed user for the MVC vs reactive benchmark; notes are created through the API
+INSERT INTO users (username, email, password) VALUES ('bench', 'bench@example.com', 'x');
@@ -0,0 +1,98 @@
+#!/usr/bin/env bash
+#
+# Load-tests GET /api/notes/user/{id} on the MVC and the reactive stack with the
+# same small thread budget, both against in-memory H2 seeded through the API.
+#
+# Prerequisites: ./mvnw -Preactive package (the jar contains both apps), wrk
+# Usage:         scripts/reactive-benchmark.sh [connections] [duration] [threads]
+#
+# Point both stacks at MySQL instead by passing datasource/r2dbc settings in
+# MVC_ARGS and REACTIVE_ARGS.
+
+set -euo pipefail
+
+CONNECTIONS="${1:-256}"
+DURATION="${2:-30s}"
+THREADS="${3:-4}"
+NOTES=50
+PORT=18080
+BASE_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="$(ls "$BASE_DIR"/target/notes-*.jar 2>/dev/null | grep -v original | head -n 1 || true)"
+DATA="file:$BASE_DIR/scripts/benchmark-data.sql"
+QUIET=(--logging.level.root=WARN --logging.level.org.springframework=WARN
+       --logging.level.com.cryptospirosis=WARN --logging.level.org.hibernate.SQL=WARN
+       --logging.level.org.hibernate.orm.jdbc.bind=WARN --spring.jpa.show-sql=false)
+read -r -a MVC_EXTRA <<< "${MVC_ARGS:-}"
+read -r -a REACTIVE_EXTRA <<< "${REACTIVE_ARGS:-}"
+
+if [[ -z "$JAR" ]]; then
+    echo "Missing jar, run: ./mvnw -Preactive package" >&2
+    exit 1
+fi
+if ! command -v wrk > /dev/null; then
+    echo "wrk is required (https://github.com/wg/wrk)" >&2
+    exit 1
+fi
+
+wait_for_port() {
+    local pid="$1"
+    until curl -s -o /dev/null "http://localhost:$PORT/api/notes/0"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "application exited during startup, see target/benchmark-*.log" >&2
+            exit 1
+        fi
+        sleep 0.2
+    done
+}
+
+seed_notes() {
+    local body
+    body="$(printf 'addr1qx%.0s' {1..100})"
+    for ((i = 1; i <= NOTES; i++)); do
+        curl -s -o /dev/null -H 'Content-Type: application/json' \
+            -d "{\"title\":\"note $i\",\"body\":\"$body\",\"payeeAddress\":\"addr1q$((i % 5))\",\"payeeAmount\":$i}" \
+            "http://localhost:$PORT/api/notes/user/1"
+    done
+}
+
+# run_stack <name> <label> <java args...>; application output goes to target/benchmark-<name>.log
+run_stack() {
+    local name="$1"
+    local label="$2"
+    shift 2
+    java "$@" --server.port="$PORT" "${QUIET[@]}" > "$BASE_DIR/target/benchmark-$name.log" 2>&1 &
+    local pid=$!
+    wait_for_port "$pid"
+    seed_notes
+
+    echo "== $label"
+    wrk -t"$THREADS" -c"$CONNECTIONS" -d"$DURATION" --latency "http://localhost:$PORT/api/notes/user/1" \
+        | grep -E 'Latency|Req/Sec|requests in|Requests/sec|Non-2xx|Socket errors|^ +(50|99)%'
+    echo "   RSS: $(awk '/^VmRSS:/ { print int($2 / 1024) " MB" }' "/proc/$pid/status"), threads: $(ls "/proc/$pid/task" | wc -l)"
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+}
+
+# Tomcat with 8 request threads and 8 JDBC connections
+run_stack mvc "mvc (tomcat, 8 threads)" \
+    -Dloader.main=com.cryptospirosis.notes.NotesApplication \
+    -cp "$JAR" org.springframework.boot.loader.launch.PropertiesLauncher \
+    --spring.datasource.url=jdbc:h2:mem:bench --spring.datasource.driver-class-name=org.h2.Driver \
+    --spring.datasource.username=sa --spring.datasource.password= \
+    --spring.jpa.database-platform=org.hibernate.dialect.H2Dialect \
+    --spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect \
+    --spring.datasource.hikari.maximum-pool-size=8 \
+    --spring.jpa.defer-datasource-initialization=true \
+    --spring.sql.init.mode=always --spring.sql.init.data-locations="$DATA" \
+    --server.tomcat.threads.max=8 \
+    "${MVC_EXTRA[@]}"
+
+# Netty with 2 event-loop threads and 8 R2DBC connections
+run_stack reactive "reactive (netty, 2 event loops)" \
+    -Dreactor.netty.ioWorkerCount=2 \
+    -jar "$JAR" \
+    --spring.profiles.active=h2 \
+    --spring.r2dbc.pool.initial-size=8 --spring.r2dbc.pool.max-size=8 \
+    --spring.sql.init.data-locations="$DATA" \
+    "${REACTIVE_EXTRA[@]}"
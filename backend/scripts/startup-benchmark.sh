@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+#
+# Compares startup of the notes backend across launch modes.
+# Reports time-to-first-request (JVM launch until the first HTTP response)
+# and resident set size once that response has been served.
+#
+# Prerequisite: ./mvnw -Pfast-startup package
+# Usage:        scripts/startup-benchmark.sh [runs] [port]
+#
+# Extra Spring arguments (e.g. a benchmark datasource) can be passed with
+# BENCH_ARGS, for example:
+#   BENCH_ARGS="--spring.datasource.url=jdbc:h2:mem:bench --spring.datasource.driver-class-name=org.h2.Driver" \
+#     scripts/startup-benchmark.sh 5
+
+set -euo pipefail
+
+RUNS="${1:-3}"
+PORT="${2:-8080}"
+BASE_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+TARGET="$BASE_DIR/target"
+JAR="$(ls "$TARGET"/notes-*.jar 2>/dev/null | grep -v original | head -n 1 || true)"
+CDS_DIR="$TARGET/cds"
+CDS_JAR="$CDS_DIR/$(basename "${JAR:-missing.jar}")"
+CDS_ARCHIVE="$CDS_DIR/application.jsa"
+URL="http://localhost:$PORT/api/notes/0"
+read -r -a EXTRA_ARGS <<< "${BENCH_ARGS:-}"
+
+if [[ -z "$JAR" || ! -f "$CDS_ARCHIVE" ]]; then
+    echo "Missing jar or CDS archive, run: ./mvnw -Pfast-startup package" >&2
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+rss_kb() {
+    awk '/^VmRSS:/ { print $2 }' "/proc/$1/status"
+}
+
+# run_mode <label> <java args...>
+run_mode() {
+    local label="$1"
+    shift
+    local total_ms=0
+    local total_rss=0
+
+    for ((i = 1; i <= RUNS; i++)); do
+        local start
+        start="$(now_ms)"
+        java "$@" --server.port="$PORT" "${EXTRA_ARGS[@]}" > /dev/null 2>&1 &
+        local pid=$!
+
+        # Any HTTP status (even 401/404) means the server is accepting traffic
+        until curl -s -o /dev/null "$URL"; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "$label: application exited during startup" >&2
+                return 1
+            fi
+            sleep 0.05
+        done
+
+        local elapsed=$(( $(now_ms) - start ))
+        local rss
+        rss="$(rss_kb "$pid")"
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+
+        total_ms=$((total_ms + elapsed))
+        total_rss=$((total_rss + rss))
+    done
+
+    printf "%-16s %10d ms %10d MB\n" "$label" $((total_ms / RUNS)) $((total_rss / RUNS / 1024))
+}
+
+printf "%-16s %13s %13s\n" "mode" "first-request" "rss"
+run_mode "jit"            -jar "$JAR"
+run_mode "jit+lazy"       -jar "$JAR" --spring.profiles.active=lazy
+run_mode "aot+cds"        -XX:SharedArchiveFile="$CDS_ARCHIVE" -Dspring.aot.enabled=true -jar "$CDS_JAR"
+run_mode "aot+cds+lazy"   -XX:SharedArchiveFile="$CDS_ARCHIVE" -Dspring.aot.enabled=true -jar "$CDS_JAR" --spring.profiles.active=lazy
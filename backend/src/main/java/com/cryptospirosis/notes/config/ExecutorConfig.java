@@ -0,0 +1,38 @@
+package com.cryptospirosis.notes.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Runs the independent queries behind GET /api/dashboard; when saturated the
+    // request thread runs the query itself instead of queueing without bound
+    @Bean
+    public ThreadPoolTaskExecutor dashboardExecutor(@Value("${notes.dashboard.executor.threads:8}") int threads,
+            @Value("${notes.dashboard.executor.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("dashboard-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // Background purge of large deleted accounts; kept small so cleanup never crowds out requests
+    @Bean
+    public ThreadPoolTaskExecutor cleanupExecutor(@Value("${notes.cleanup.executor.threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("cleanup-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
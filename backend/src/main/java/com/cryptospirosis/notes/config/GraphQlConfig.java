@@ -0,0 +1,101 @@
+package com.cryptospirosis.notes.config;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.RuntimeWiringConfigurer;
+
+import graphql.GraphQLContext;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.CoercedVariables;
+import graphql.language.FloatValue;
+import graphql.language.IntValue;
+import graphql.language.StringValue;
+import graphql.schema.Coercing;
+import graphql.schema.CoercingParseLiteralException;
+import graphql.schema.CoercingParseValueException;
+import graphql.schema.CoercingSerializeException;
+import graphql.schema.GraphQLScalarType;
+import graphql.schema.GraphQLTypeUtil;
+
+@Configuration
+public class GraphQlConfig {
+
+    @Bean
+    public RuntimeWiringConfigurer decimalScalar() {
+        return wiring -> wiring.scalar(GraphQLScalarType.newScalar()
+                .name("Decimal")
+                .description("Exact decimal, serialized as a plain string")
+                .coercing(new DecimalCoercing())
+                .build());
+    }
+
+    // Rejects deeply nested queries such as users { notes { user { notes ... } } } before they run
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepth(@Value("${notes.graphql.max-depth:6}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    // List fields multiply the cost of their selection by their page size (`first`, or its schema
+    // default), or by an estimated fan-out for a list without one
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexity(
+            @Value("${notes.graphql.max-complexity:1000}") int maxComplexity,
+            @Value("${notes.graphql.list-fan-out:10}") int listFanOut) {
+        return new MaxQueryComplexityInstrumentation(maxComplexity, (env, childComplexity) -> {
+            boolean list = GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(env.getFieldDefinition().getType()));
+            if (!list) {
+                return 1 + childComplexity;
+            }
+            Object first = env.getArguments().get("first");
+            int size = first instanceof Integer pageSize ? Math.max(pageSize, 1) : listFanOut;
+            return size * (1 + childComplexity);
+        });
+    }
+
+    private static class DecimalCoercing implements Coercing<BigDecimal, String> {
+
+        @Override
+        public String serialize(Object value, GraphQLContext context, Locale locale) {
+            if (value instanceof BigDecimal decimal) {
+                return decimal.toPlainString();
+            }
+            if (value instanceof Number number) {
+                return new BigDecimal(number.toString()).toPlainString();
+            }
+            throw new CoercingSerializeException("Not a decimal: " + value);
+        }
+
+        @Override
+        public BigDecimal parseValue(Object input, GraphQLContext context, Locale locale) {
+            try {
+                return new BigDecimal(input.toString());
+            } catch (NumberFormatException e) {
+                throw new CoercingParseValueException("Not a decimal: " + input, e);
+            }
+        }
+
+        @Override
+        public BigDecimal parseLiteral(graphql.language.Value<?> input, CoercedVariables variables, GraphQLContext context,
+                Locale locale) {
+            if (input instanceof StringValue string) {
+                try {
+                    return new BigDecimal(string.getValue());
+                } catch (NumberFormatException e) {
+                    throw new CoercingParseLiteralException("Not a decimal: " + string.getValue(), e);
+                }
+            }
+            if (input instanceof IntValue integer) {
+                return new BigDecimal(integer.getValue());
+            }
+            if (input instanceof FloatValue decimal) {
+                return decimal.getValue();
+            }
+            throw new CoercingParseLiteralException("Expected a decimal string or number");
+        }
+    }
+}
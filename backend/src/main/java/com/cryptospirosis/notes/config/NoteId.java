@@ -0,0 +1,16 @@
+package com.cryptospirosis.notes.config;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+// Generates note ids through NoteIdGenerator
+@IdGeneratorType(NoteIdGenerator.class)
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface NoteId {
+}
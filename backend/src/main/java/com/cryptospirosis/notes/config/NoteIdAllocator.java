@@ -0,0 +1,57 @@
+package com.cryptospirosis.notes.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Hands out note ids for every shard from one counter on the main shard, so ids are unique across
+ * shards and a note keeps its id when its user moves. Ids are reserved in chunks, each in a short
+ * transaction of its own on a dedicated connection to main, whatever shard the caller is working on.
+ * Refills are serialized by nextId, so the allocator never needs more than one connection.
+ */
+public class NoteIdAllocator implements AutoCloseable {
+
+    private static final int CHUNK = 100;
+
+    private final HikariDataSource pool;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+    private long next;
+    private long end;
+
+    public NoteIdAllocator(HikariDataSource pool) {
+        this.pool = pool;
+        this.jdbc = new JdbcTemplate(pool);
+        this.transaction = new TransactionTemplate(new DataSourceTransactionManager(pool));
+    }
+
+    // Creates the counter or moves it past every note id already on a shard; run at startup
+    void initialize(long maxNoteId) {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS note_ids (next_id BIGINT NOT NULL)");
+        transaction.executeWithoutResult(status -> {
+            if (jdbc.update("UPDATE note_ids SET next_id = ? WHERE next_id <= ?", maxNoteId + 1, maxNoteId) == 0
+                    && jdbc.queryForObject("SELECT COUNT(*) FROM note_ids", Long.class) == 0) {
+                jdbc.update("INSERT INTO note_ids (next_id) VALUES (?)", maxNoteId + 1);
+            }
+        });
+    }
+
+    public synchronized long nextId() {
+        if (next == end) {
+            end = transaction.execute(status -> {
+                jdbc.update("UPDATE note_ids SET next_id = next_id + ?", CHUNK);
+                return jdbc.queryForObject("SELECT next_id FROM note_ids", Long.class);
+            });
+            next = end - CHUNK;
+        }
+        return next++;
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
@@ -0,0 +1,58 @@
+package com.cryptospirosis.notes.config;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.IdentityGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.Selectable;
+
+/**
+ * Identity column ids, unless sharding registered a NoteIdAllocator with Hibernate: then ids are
+ * assigned before the insert, because copies between shards would otherwise move the shards'
+ * identity counters into each other's ranges.
+ */
+public class NoteIdGenerator extends IdentityGenerator implements BeforeExecutionGenerator {
+
+    public static final String ALLOCATOR = "notes.sharding.note-id-allocator";
+
+    // Hibernate only marks the column as identity for its own generators; the schema needs it
+    // whenever sharding is off
+    public NoteIdGenerator(NoteId config, Member member, CustomIdGeneratorCreationContext context) {
+        for (Selectable column : context.getProperty().getValue().getSelectables()) {
+            if (column instanceof Column identity) {
+                identity.setIdentity(true);
+            }
+        }
+    }
+
+    @Override
+    public boolean generatedOnExecution() {
+        return true;
+    }
+
+    @Override
+    public boolean generatedOnExecution(Object entity, SharedSessionContractImplementor session) {
+        return allocator(session) == null;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+            EventType eventType) {
+        return allocator(session).nextId();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    private static NoteIdAllocator allocator(SharedSessionContractImplementor session) {
+        return (NoteIdAllocator) session.getFactory().getProperties().get(ALLOCATOR);
+    }
+}
@@ -0,0 +1,72 @@
+package com.cryptospirosis.notes.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections of the shard bound to the current thread, or of the main shard when
+ * none is bound. Bind shards through ShardRouter, which also takes care of transactions:
+ * the shard has to be chosen before a transaction fetches its connection.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String MAIN_SHARD = "main";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, DataSource> shards;
+
+    public ShardRoutingDataSource(Map<String, DataSource> shards) {
+        this.shards = new LinkedHashMap<>(shards);
+        setTargetDataSources(new LinkedHashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(MAIN_SHARD));
+        // An unknown shard name is a bug, not a reason to write to main
+        setLenientFallback(false);
+    }
+
+    public static String currentShard() {
+        String shard = CURRENT.get();
+        return shard == null ? MAIN_SHARD : shard;
+    }
+
+    public static void bind(String shard) {
+        if (shard == null || MAIN_SHARD.equals(shard)) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+
+    public List<String> getShardNames() {
+        return new ArrayList<>(shards.keySet());
+    }
+
+    // The shard's own pool, for work that must not join the transaction of the bound shard
+    public DataSource getShardDataSource(String shard) {
+        DataSource dataSource = shards.get(shard);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        return dataSource;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards.values()) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.cryptospirosis.notes.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Hibernate only manages the schema of the connection it bootstraps with, i.e. the main shard.
+ * Once the session factory exists, this replays its schema management on every other shard
+ * (as "update", never dropping anything), moves each shard's payee ids to a block of its own and
+ * sets the note id counter past every note id on any shard (see NoteIdAllocator).
+ */
+public class ShardSchemaInitializer implements Integrator, SmartInitializingSingleton {
+
+    // Shard n hands out payee ids from n * ID_BLOCK; main (n = 0) keeps its existing ids
+    public static final long ID_BLOCK = 1L << 40;
+
+    private static final List<String> NONE = List.of("none", "validate");
+
+    private final ShardRoutingDataSource dataSource;
+    private final NoteIdAllocator noteIds;
+    private volatile Metadata metadata;
+    private volatile SessionFactoryImplementor sessionFactory;
+
+    public ShardSchemaInitializer(ShardRoutingDataSource dataSource, NoteIdAllocator noteIds) {
+        this.dataSource = dataSource;
+        this.noteIds = noteIds;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+            SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (sessionFactory == null) {
+            throw new IllegalStateException("Hibernate did not report its metadata; shards cannot be initialized");
+        }
+        Map<String, Object> settings = new HashMap<>(sessionFactory.getProperties());
+        Object action = settings.get(AvailableSettings.HBM2DDL_AUTO);
+        boolean manageSchema = action != null && !NONE.contains(action.toString());
+        settings.put(AvailableSettings.HBM2DDL_AUTO, "update");
+        settings.remove(AvailableSettings.JAKARTA_HBM2DDL_DATABASE_ACTION);
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        List<String> shards = dataSource.getShardNames();
+        for (int index = 1; index < shards.size(); index++) {
+            ShardRoutingDataSource.bind(shards.get(index));
+            try {
+                if (manageSchema) {
+                    SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(), settings,
+                            dropAction -> { });
+                }
+                reserveIds(jdbc, "payees", "payee_id", index);
+            } finally {
+                ShardRoutingDataSource.bind(null);
+            }
+        }
+
+        long maxNoteId = 0;
+        for (String shard : shards) {
+            Long max = new JdbcTemplate(dataSource.getShardDataSource(shard))
+                    .queryForObject("SELECT MAX(notes_id) FROM notes", Long.class);
+            maxNoteId = Math.max(maxNoteId, max == null ? 0 : max);
+        }
+        noteIds.initialize(maxNoteId);
+    }
+
+    // Skipped once the shard holds ids from its block, so restarts never move the counter back
+    private void reserveIds(JdbcTemplate jdbc, String table, String column, int index) {
+        long start = index * ID_BLOCK;
+        Long max = jdbc.queryForObject("SELECT MAX(" + column + ") FROM " + table, Long.class);
+        if (max != null && max >= start) {
+            return;
+        }
+        String product = jdbc.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        switch (product) {
+            case "MySQL" -> jdbc.execute("ALTER TABLE " + table + " AUTO_INCREMENT = " + start);
+            case "H2" -> jdbc.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " RESTART WITH " + start);
+            default -> throw new IllegalStateException("Cannot reserve an id block for " + table + " on " + product);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.cryptospirosis.notes.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// With notes.sharding.enabled the application DataSource routes to the shard bound by ShardRouter;
+// without it nothing here is created and spring.datasource is used as before
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "notes.sharding.enabled", havingValue = "true")
+    public ShardRoutingDataSource dataSource(DataSourceProperties main, ShardingProperties sharding) {
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        HikariDataSource mainPool = main.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        mainPool.setPoolName("shard-" + ShardRoutingDataSource.MAIN_SHARD);
+        shards.put(ShardRoutingDataSource.MAIN_SHARD, mainPool);
+
+        sharding.getShards().forEach((name, shard) -> {
+            if (ShardRoutingDataSource.MAIN_SHARD.equals(name)) {
+                throw new IllegalStateException("Shard name '" + name + "' is reserved for spring.datasource");
+            }
+            DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword());
+            if (shard.getDriverClassName() != null) {
+                builder.driverClassName(shard.getDriverClassName());
+            }
+            HikariDataSource pool = builder.build();
+            pool.setPoolName("shard-" + name);
+            shards.put(name, pool);
+        });
+        return new ShardRoutingDataSource(shards);
+    }
+
+    // A pool of its own on main's database: note writers already hold one of main's pooled
+    // connections (their user-row lock), so a refill taken from that pool could wait forever
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "notes.sharding.enabled", havingValue = "true")
+    public NoteIdAllocator noteIdAllocator(DataSourceProperties main) {
+        HikariDataSource pool = main.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("note-ids");
+        pool.setMaximumPoolSize(1);
+        return new NoteIdAllocator(pool);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notes.sharding.enabled", havingValue = "true")
+    public ShardSchemaInitializer shardSchemaInitializer(ShardRoutingDataSource dataSource,
+            NoteIdAllocator noteIds) {
+        return new ShardSchemaInitializer(dataSource, noteIds);
+    }
+
+    // Lets the initializer see Hibernate's metadata once the session factory is built, and
+    // NoteIdGenerator find the allocator
+    @Bean
+    @ConditionalOnProperty(name = "notes.sharding.enabled", havingValue = "true")
+    public HibernatePropertiesCustomizer shardSchemaIntegrator(ShardSchemaInitializer initializer,
+            NoteIdAllocator noteIds) {
+        return properties -> {
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> List.of(initializer));
+            properties.put(NoteIdGenerator.ALLOCATOR, noteIds);
+        };
+    }
+}
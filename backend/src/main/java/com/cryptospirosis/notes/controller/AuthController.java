@@ -85,8 +85,8 @@ public class AuthController {
                 return new ResponseEntity<>("Invalid username or password", HttpStatus.UNAUTHORIZED);
             }
             
-            // Generate JWT token
-            String token = jwtUtil.generateToken(user.getUsername());
+            // Generate JWT token; the subject is the email, as JwtFilter looks users up by email
+            String token = jwtUtil.generateToken(user.getEmail());
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Login successful");
@@ -0,0 +1,57 @@
+package com.cryptospirosis.notes.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.cryptospirosis.notes.controller.AuthController.UserResponse;
+import com.cryptospirosis.notes.service.DashboardService;
+import com.cryptospirosis.notes.service.DashboardService.Dashboard;
+import com.cryptospirosis.notes.service.UserNotFoundException;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    public DashboardController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    // User summary, first page of note summaries and payment totals for the logged-in user
+    @GetMapping
+    public ResponseEntity<?> getDashboard(Authentication authentication, WebRequest request) {
+        Dashboard dashboard;
+        try {
+            dashboard = dashboardService.getDashboard(authentication.getName());
+        } catch (UserNotFoundException e) {
+            // Query failures are not caught: they are server errors, not a missing user
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+
+        String etag = dashboard.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("user", new UserResponse(dashboard.user()));
+        response.put("notes", dashboard.notes());
+        response.put("totals", dashboard.totals());
+
+        // Let browsers keep a private copy and revalidate it with If-None-Match
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(response);
+    }
+}
@@ -0,0 +1,240 @@
+package com.cryptospirosis.notes.controller;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.dataloader.BatchLoaderEnvironment;
+import org.dataloader.DataLoader;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+
+import com.cryptospirosis.notes.repository.NoteRepository;
+import com.cryptospirosis.notes.repository.NoteRepository.UserNoteTotals;
+import com.cryptospirosis.notes.repository.SelectionRepository;
+import com.cryptospirosis.notes.repository.UserRepository;
+import com.cryptospirosis.notes.service.ShardRouter;
+
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolvers for graphql/schema.graphqls. Rows are maps holding only the selected columns.
+ * Per-user fields go through DataLoaders, so a page of users costs one query per field and
+ * shard instead of one per user; each load passes its selection along, and the batch selects
+ * the union of what was asked for. Per-user lists are paged, and the limit applies per user
+ * inside the batch query.
+ *
+ * Callers only see their own user and notes; the per-user lists hang off those, so they are
+ * scoped with them. Operators (ROLE_OPERATOR) may read any user and list the directory.
+ */
+@Controller
+public class GraphQlController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    // Default of `first` on User.notes and User.payees
+    private static final int DEFAULT_LIST_SIZE = 10;
+
+    private static final String USERS = "usersById";
+    private static final String NOTES = "notesByUser";
+    private static final String PAYEES = "payeesByUser";
+    private static final String TOTALS = "totalsByUser";
+
+    private static final String OPERATOR = "ROLE_OPERATOR";
+
+    private final SelectionRepository selectionRepository;
+    private final NoteRepository noteRepository;
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+
+    public GraphQlController(SelectionRepository selectionRepository, NoteRepository noteRepository,
+            UserRepository userRepository, ShardRouter shardRouter, BatchLoaderRegistry registry) {
+        this.selectionRepository = selectionRepository;
+        this.noteRepository = noteRepository;
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+
+        registry.<Long, Map<String, Object>>forName(USERS).registerMappedBatchLoader((ids, env) ->
+                Mono.fromCallable(() -> loadUsers(ids, env)));
+        registry.<UserPage, List<Map<String, Object>>>forName(NOTES).registerMappedBatchLoader((keys, env) ->
+                Mono.fromCallable(() -> pagesPerShard(keys, (batch, page) ->
+                        selectionRepository.findNotesByUsers(fields(env), batch, page.first(), page.after()))));
+        registry.<UserPage, List<Map<String, Object>>>forName(PAYEES).registerMappedBatchLoader((keys, env) ->
+                Mono.fromCallable(() -> pagesPerShard(keys, (batch, page) ->
+                        selectionRepository.findPayeesByUsers(fields(env), batch, page.first(), page.after()))));
+        registry.<Long, Map<String, Object>>forName(TOTALS).registerMappedBatchLoader((ids, env) ->
+                Mono.fromCallable(() -> loadTotals(ids)));
+    }
+
+    // Another user's account reads as missing, like the owner-filtered REST routes
+    @QueryMapping
+    public Map<String, Object> user(@Argument Long id, DataFetchingFieldSelectionSet selection,
+            Authentication authentication) {
+        if (!canRead(id, authentication)) {
+            return null;
+        }
+        return selectionRepository.findUsersByIds(fields(selection), List.of(id)).stream().findFirst().orElse(null);
+    }
+
+    @QueryMapping
+    public List<Map<String, Object>> users(@Argument Integer first, @Argument Long after,
+            DataFetchingFieldSelectionSet selection, Authentication authentication) {
+        if (!isOperator(authentication)) {
+            throw new AccessDeniedException("Listing users is restricted to operators");
+        }
+        int pageSize = Math.min(Math.max(first == null ? 20 : first, 1), MAX_PAGE_SIZE);
+        return selectionRepository.findUsersAfter(fields(selection), after == null ? 0L : after, pageSize);
+    }
+
+    // The row always carries userId, so ownership is checked on what was read
+    @QueryMapping
+    public Map<String, Object> note(@Argument Long id, DataFetchingFieldSelectionSet selection,
+            Authentication authentication) {
+        return shardRouter.onShardReadOnly(shardRouter.shardOfNote(id),
+                        () -> selectionRepository.findNote(fields(selection), id))
+                .filter(note -> canRead((Long) note.get("userId"), authentication))
+                .orElse(null);
+    }
+
+    @SchemaMapping(typeName = "User")
+    public CompletableFuture<List<Map<String, Object>>> notes(Map<String, Object> user, @Argument Integer first,
+            @Argument Long after, DataFetchingEnvironment env) {
+        return load(NOTES, new UserPage((Long) user.get("id"), page(first, after)), env);
+    }
+
+    @SchemaMapping(typeName = "User")
+    public CompletableFuture<List<Map<String, Object>>> payees(Map<String, Object> user, @Argument Integer first,
+            @Argument Long after, DataFetchingEnvironment env) {
+        return load(PAYEES, new UserPage((Long) user.get("id"), page(first, after)), env);
+    }
+
+    @SchemaMapping(typeName = "User")
+    public CompletableFuture<Map<String, Object>> totals(Map<String, Object> user, DataFetchingEnvironment env) {
+        return load(TOTALS, (Long) user.get("id"), env);
+    }
+
+    @SchemaMapping(typeName = "Note", field = "user")
+    public CompletableFuture<Map<String, Object>> noteUser(Map<String, Object> note, DataFetchingEnvironment env) {
+        return load(USERS, (Long) note.get("userId"), env);
+    }
+
+    private boolean canRead(Long userId, Authentication authentication) {
+        if (isOperator(authentication)) {
+            return true;
+        }
+        return userRepository.findSummaryByEmail(authentication.getName())
+                .map(caller -> caller.getUserId().equals(userId))
+                .orElse(false);
+    }
+
+    // Anonymous callers never get here: resolving the Authentication argument fails as UNAUTHORIZED
+    private static boolean isOperator(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> OPERATOR.equals(authority.getAuthority()));
+    }
+
+    private static <K, V> CompletableFuture<V> load(String loader, K key, DataFetchingEnvironment env) {
+        DataLoader<K, V> dataLoader = env.getDataLoader(loader);
+        return dataLoader.load(key, env.getSelectionSet());
+    }
+
+    private static Page page(Integer first, Long after) {
+        return new Page(Math.min(Math.max(first == null ? DEFAULT_LIST_SIZE : first, 1), MAX_PAGE_SIZE), after);
+    }
+
+    private Map<Long, Map<String, Object>> loadUsers(Set<Long> ids, BatchLoaderEnvironment env) {
+        Map<Long, Map<String, Object>> users = new HashMap<>();
+        selectionRepository.findUsersByIds(fields(env), ids).forEach(user -> users.put((Long) user.get("id"), user));
+        return users;
+    }
+
+    // Users without notes get zero totals rather than null
+    private Map<Long, Map<String, Object>> loadTotals(Set<Long> ids) {
+        Map<Long, Map<String, Object>> totals = perShard(ids, batch -> {
+            Map<Long, Map<String, Object>> rows = new HashMap<>();
+            for (UserNoteTotals row : noteRepository.findTotalsByUsers(batch)) {
+                Map<String, Object> total = new HashMap<>();
+                total.put("noteCount", row.getNoteCount());
+                total.put("totalAmount", row.getTotalAmount());
+                total.put("lastNoteAt", row.getLastNoteAt());
+                rows.put(row.getUserId(), total);
+            }
+            return rows;
+        });
+        for (Long id : ids) {
+            totals.computeIfAbsent(id, missing -> {
+                Map<String, Object> empty = new HashMap<>();
+                empty.put("noteCount", 0L);
+                empty.put("totalAmount", BigDecimal.ZERO);
+                return empty;
+            });
+        }
+        return totals;
+    }
+
+    // Notes and payees live on the user's shard: one query per shard in the batch
+    private <V> Map<Long, V> perShard(Collection<Long> userIds, Function<List<Long>, Map<Long, V>> query) {
+        Map<Long, V> result = new HashMap<>();
+        shardRouter.groupByShard(userIds).forEach((shard, batch) ->
+                result.putAll(shardRouter.onShardReadOnly(shard, () -> query.apply(batch))));
+        return result;
+    }
+
+    // Rows of all users in the batch, split per user and limited per user by the query: one query per
+    // shard and distinct page arguments. Users without rows get an empty list.
+    private Map<UserPage, List<Map<String, Object>>> pagesPerShard(Set<UserPage> keys,
+            BiFunction<List<Long>, Page, List<Map<String, Object>>> query) {
+        Map<UserPage, List<Map<String, Object>>> pages = new HashMap<>();
+        keys.stream()
+                .collect(Collectors.groupingBy(UserPage::page, Collectors.mapping(UserPage::userId, Collectors.toSet())))
+                .forEach((page, userIds) -> {
+                    Map<Long, List<Map<String, Object>>> byUser = perShard(userIds, batch -> {
+                        Map<Long, List<Map<String, Object>>> rows = new HashMap<>();
+                        for (Map<String, Object> row : query.apply(batch, page)) {
+                            rows.computeIfAbsent((Long) row.get("userId"), id -> new ArrayList<>()).add(row);
+                        }
+                        return rows;
+                    });
+                    userIds.forEach(id -> pages.put(new UserPage(id, page), byUser.getOrDefault(id, List.of())));
+                });
+        return pages;
+    }
+
+    private static Set<String> fields(DataFetchingFieldSelectionSet selection) {
+        Set<String> fields = new LinkedHashSet<>();
+        for (SelectedField field : selection.getImmediateFields()) {
+            fields.add(field.getName());
+        }
+        return fields;
+    }
+
+    private static Set<String> fields(BatchLoaderEnvironment env) {
+        Set<String> fields = new LinkedHashSet<>();
+        for (Object selection : env.getKeyContextsList()) {
+            fields.addAll(fields((DataFetchingFieldSelectionSet) selection));
+        }
+        return fields;
+    }
+
+    private record Page(int first, Long after) {
+    }
+
+    private record UserPage(Long userId, Page page) {
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/notes")
@@ -47,8 +48,26 @@ public NoteEntity createNote(@PathVariable Long userId, @RequestBody NoteEntity
 
     // Delete note
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteNote(@PathVariable Long id) {
-        noteService.deleteNote(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Map<String, Integer>> deleteNote(@PathVariable Long id) {
+        return deletedResponse(noteService.deleteNote(id));
+    }
+
+    // Delete a note only if it belongs to the user
+    @DeleteMapping("/user/{userId}/{id}")
+    public ResponseEntity<Map<String, Integer>> deleteUserNote(@PathVariable Long userId, @PathVariable Long id) {
+        return deletedResponse(noteService.deleteNote(userId, id));
+    }
+
+    // Delete several of a user's notes; the body is the list of note ids
+    @DeleteMapping("/user/{userId}")
+    public Map<String, Integer> deleteUserNotes(@PathVariable Long userId, @RequestBody List<Long> ids) {
+        return Map.of("deleted", noteService.deleteNotes(userId, ids));
+    }
+
+    private ResponseEntity<Map<String, Integer>> deletedResponse(int deleted) {
+        if (deleted == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("deleted", deleted));
     }
 }
@@ -0,0 +1,24 @@
+package com.cryptospirosis.notes.controller;
+
+import com.cryptospirosis.notes.entity.PayeeEntity;
+import com.cryptospirosis.notes.service.PayeeService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/payees")
+public class PayeeController {
+
+    private final PayeeService payeeService;
+
+    public PayeeController(PayeeService payeeService) {
+        this.payeeService = payeeService;
+    }
+
+    // Address book for a user, with note counts and payment totals per payee
+    @GetMapping("/user/{userId}")
+    public List<PayeeEntity> getPayeesByUser(@PathVariable Long userId) {
+        return payeeService.getPayeesByUser(userId);
+    }
+}
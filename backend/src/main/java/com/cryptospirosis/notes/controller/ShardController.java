@@ -0,0 +1,82 @@
+package com.cryptospirosis.notes.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.cryptospirosis.notes.service.ShardMigrationService;
+import com.cryptospirosis.notes.service.ShardMigrationService.Migration;
+import com.cryptospirosis.notes.service.ShardMigrationService.Rebalance;
+import com.cryptospirosis.notes.service.ShardRouter;
+
+// Operator endpoints for the note shards: placement overview, single-user moves and rebalancing
+@RestController
+@RequestMapping("/api/shards")
+public class ShardController {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardController.class);
+
+    private final ShardRouter shardRouter;
+    private final ShardMigrationService migrationService;
+    private final Executor cleanupExecutor;
+
+    public ShardController(ShardRouter shardRouter, ShardMigrationService migrationService,
+            @Qualifier("cleanupExecutor") Executor cleanupExecutor) {
+        this.shardRouter = shardRouter;
+        this.migrationService = migrationService;
+        this.cleanupExecutor = cleanupExecutor;
+    }
+
+    @GetMapping
+    public Map<String, Object> getShards() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("enabled", shardRouter.isEnabled());
+        response.put("users", migrationService.getUsersPerShard());
+        return response;
+    }
+
+    @GetMapping("/users/{userId}")
+    public Map<String, Object> getUserShard(@PathVariable Long userId) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("userId", userId);
+        response.put("shard", shardRouter.shardOf(userId));
+        response.put("ringShard", shardRouter.ringShardOf(userId));
+        return response;
+    }
+
+    // Move one user now; returns once the notes are readable on the target shard
+    @PostMapping("/users/{userId}/migrate")
+    public ResponseEntity<?> migrateUser(@PathVariable Long userId, @RequestParam String shard) {
+        try {
+            Migration migration = migrationService.migrate(userId, shard);
+            return new ResponseEntity<>(migration, HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Move every user the ring places elsewhere, one user at a time in the background
+    @PostMapping("/rebalance")
+    public ResponseEntity<?> rebalance() {
+        if (!shardRouter.isEnabled()) {
+            return new ResponseEntity<>("Sharding is not enabled", HttpStatus.BAD_REQUEST);
+        }
+        cleanupExecutor.execute(() -> {
+            Rebalance rebalance = migrationService.rebalance();
+            log.info("Rebalance finished: {} users moved, {} failed", rebalance.moved(), rebalance.failed());
+        });
+        return new ResponseEntity<>(Map.of("message", "Rebalance scheduled"), HttpStatus.ACCEPTED);
+    }
+}
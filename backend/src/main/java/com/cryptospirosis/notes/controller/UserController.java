@@ -1,10 +1,15 @@
 package com.cryptospirosis.notes.controller;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,19 +19,33 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.cryptospirosis.notes.entity.UserEntity;
+import com.cryptospirosis.notes.repository.UserRepository.UserSummary;
+import com.cryptospirosis.notes.service.UserNotFoundException;
 import com.cryptospirosis.notes.service.UserService;
+import com.cryptospirosis.notes.service.UserService.UserSearch;
+import com.cryptospirosis.notes.service.UserService.UserDeletion;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/api/users")
 @CrossOrigin(origins = "*")
 public class UserController {
     
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     // Create a new user
     @PostMapping
     public ResponseEntity<?> createUser(@RequestBody UserEntity user) {
@@ -38,11 +57,46 @@ public class UserController {
         }
     }
     
-    // Get all users
+    // List users one keyset page at a time, optionally by username or email prefix. The JSON array
+    // is written while the rows are read; pass the last userId (or the last username / email when
+    // searching) as after to get the next page.
     @GetMapping
-    public ResponseEntity<List<UserEntity>> getAllUsers() {
-        List<UserEntity> users = userService.getAllUsers();
-        return new ResponseEntity<>(users, HttpStatus.OK);
+    public ResponseEntity<StreamingResponseBody> getUsers(@RequestParam(required = false) String username,
+            @RequestParam(required = false) String email, @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (username != null && email != null) {
+            return badRequest("Search by username or by email, not both");
+        }
+        UserSearch search = username != null ? UserSearch.USERNAME : email != null ? UserSearch.EMAIL : UserSearch.NONE;
+        if (search == UserSearch.NONE && after != null && !after.matches("\\d{1,18}")) {
+            return badRequest("after must be a user id");
+        }
+        String prefix = username != null ? username : email;
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                userService.forEachUser(search, prefix, after, pageSize, user -> {
+                    try {
+                        json.writeStartObject();
+                        json.writeNumberField("userId", user.getUserId());
+                        json.writeStringField("username", user.getUsername());
+                        json.writeStringField("email", user.getEmail());
+                        json.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+    
+    private static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN)
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
     }
     
     // Get user by ID
@@ -59,7 +113,7 @@ public class UserController {
     // Get user by username
     @GetMapping("/username/{username}")
     public ResponseEntity<?> getUserByUsername(@PathVariable String username) {
-        Optional<UserEntity> user = userService.getUserByUsername(username);
+        Optional<UserSummary> user = userService.getUserSummaryByUsername(username);
         if (user.isPresent()) {
             return new ResponseEntity<>(user.get(), HttpStatus.OK);
         } else {
@@ -70,7 +124,7 @@ public class UserController {
     // Get user by email
     @GetMapping("/email/{email}")
     public ResponseEntity<?> getUserByEmail(@PathVariable String email) {
-        Optional<UserEntity> user = userService.getUserByEmail(email);
+        Optional<UserSummary> user = userService.getUserSummaryByEmail(email);
         if (user.isPresent()) {
             return new ResponseEntity<>(user.get(), HttpStatus.OK);
         } else {
@@ -93,9 +147,19 @@ public class UserController {
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
         try {
-            userService.deleteUser(id);
-            return new ResponseEntity<>("User deleted successfully", HttpStatus.OK);
-        } catch (RuntimeException e) {
+            UserDeletion deletion = userService.deleteUser(id);
+            
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("notesDeleted", deletion.notesDeleted());
+            response.put("usersDeleted", deletion.usersDeleted());
+            if (deletion.completed()) {
+                response.put("message", "User deleted successfully");
+                return new ResponseEntity<>(response, HttpStatus.OK);
+            }
+            response.put("message", "User deletion scheduled");
+            return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+        } catch (UserNotFoundException e) {
+            // Anything else (a note still referencing the user, a query failure) is a server error
             return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
         }
     }
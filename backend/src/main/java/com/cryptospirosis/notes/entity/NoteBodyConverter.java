@@ -0,0 +1,27 @@
+package com.cryptospirosis.notes.entity;
+
+import com.cryptospirosis.notes.service.NoteBodyCodec;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Instantiated through Spring's Hibernate bean container, so the codec is injected
+@Converter
+public class NoteBodyConverter implements AttributeConverter<String, byte[]> {
+
+    private final NoteBodyCodec codec;
+
+    public NoteBodyConverter(NoteBodyCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(String body) {
+        return body == null ? null : codec.encode(body);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        return stored == null ? null : codec.decode(stored);
+    }
+}
@@ -4,31 +4,42 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+import com.cryptospirosis.notes.config.NoteId;
 
 @Entity
 @Table(name = "notes")
 public class NoteEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @NoteId
     private Long notesId;
 
     @Column(nullable = false)
     private String title;
 
-    @Column(columnDefinition = "TEXT")
+    // Stored compressed above a size threshold, see NoteBodyConverter
+    @Convert(converter = NoteBodyConverter.class)
+    @Column(columnDefinition = "BLOB")
     private String body;
 
+    // Address as sent by clients; persisted through the interned payee
+    @Transient
     private String payeeAddress;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payee_id")
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private PayeeEntity payee;
+
     @Column(precision = 19, scale = 6)
     private BigDecimal payeeAmount;
 
@@ -92,6 +103,9 @@ private UserEntity user;
     }
 
     public String getPayeeAddress() {
+        if (payeeAddress == null && payee != null) {
+            return payee.getAddress();
+        }
         return payeeAddress;
     }
 
@@ -99,6 +113,14 @@ private UserEntity user;
         this.payeeAddress = payeeAddress;
     }
 
+    public PayeeEntity getPayee() {
+        return payee;
+    }
+
+    public void setPayee(PayeeEntity payee) {
+        this.payee = payee;
+    }
+
     public BigDecimal getPayeeAmount() {
         return payeeAmount;
     }
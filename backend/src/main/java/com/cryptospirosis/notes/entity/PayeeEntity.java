@@ -0,0 +1,88 @@
+package com.cryptospirosis.notes.entity;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// One row per distinct payee address of a user; notes reference it by payeeId.
+// noteCount/totalAmount are maintained by NoteService so the address book never scans notes.
+@Entity
+@Table(name = "payees", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "address"}))
+public class PayeeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long payeeId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private UserEntity user;
+
+    @Column(nullable = false)
+    private String address;
+
+    @Column(nullable = false)
+    private long noteCount;
+
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    // Constructors
+    public PayeeEntity() {}
+
+    public PayeeEntity(UserEntity user, String address) {
+        this.user = user;
+        this.address = address;
+    }
+
+    // Getters & Setters
+    public Long getPayeeId() {
+        return payeeId;
+    }
+
+    public void setPayeeId(Long payeeId) {
+        this.payeeId = payeeId;
+    }
+
+    public UserEntity getUser() {
+        return user;
+    }
+
+    public void setUser(UserEntity user) {
+        this.user = user;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public long getNoteCount() {
+        return noteCount;
+    }
+
+    public void setNoteCount(long noteCount) {
+        this.noteCount = noteCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+}
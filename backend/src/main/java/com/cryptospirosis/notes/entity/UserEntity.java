@@ -1,5 +1,7 @@
 package com.cryptospirosis.notes.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.*;
 
 @Entity
@@ -16,6 +18,8 @@ public class UserEntity {
     @Column(unique = true, nullable = false)
     private String email;
     
+    // Accepted on create and update, never written back out
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(nullable = false)
     private String password;
     
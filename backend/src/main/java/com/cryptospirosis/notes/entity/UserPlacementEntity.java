@@ -0,0 +1,56 @@
+package com.cryptospirosis.notes.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Which shard holds a user's notes and payees; kept on the main shard next to the users.
+// Users without a row predate sharding and live on main.
+@Entity
+@Table(name = "user_shards")
+public class UserPlacementEntity {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false, length = 64)
+    private String shard;
+
+    // Set while ShardMigrationService copies the user; writes are refused until it clears
+    @Column(nullable = false)
+    private boolean migrating;
+
+    // Constructors
+    public UserPlacementEntity() {}
+
+    public UserPlacementEntity(Long userId, String shard) {
+        this.userId = userId;
+        this.shard = shard;
+    }
+
+    // Getters & Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getShard() {
+        return shard;
+    }
+
+    public void setShard(String shard) {
+        this.shard = shard;
+    }
+
+    public boolean isMigrating() {
+        return migrating;
+    }
+
+    public void setMigrating(boolean migrating) {
+        this.migrating = migrating;
+    }
+}
@@ -1,10 +1,84 @@
 package com.cryptospirosis.notes.repository;
 
 import com.cryptospirosis.notes.entity.NoteEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface NoteRepository extends JpaRepository<NoteEntity, Long> {
+    @EntityGraph(attributePaths = "payee")
     List<NoteEntity> findByUser_UserId(Long userId);
+
+    // Payee fetched along, so the note still renders after its (routed) transaction has ended
+    @Override
+    @EntityGraph(attributePaths = "payee")
+    Optional<NoteEntity> findById(Long id);
+
+    @Query("SELECT n.user.userId FROM NoteEntity n WHERE n.notesId = :id")
+    Optional<Long> findOwnerId(@Param("id") Long id);
+
+    // Newest notes without their bodies, for list views
+    @Query("SELECT n.notesId AS notesId, n.title AS title, p.address AS payeeAddress, "
+            + "n.payeeAmount AS payeeAmount, n.createdAt AS createdAt "
+            + "FROM NoteEntity n LEFT JOIN n.payee p WHERE n.user.userId = :userId "
+            + "ORDER BY n.createdAt DESC, n.notesId DESC")
+    List<NoteSummary> findSummariesByUser(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT COUNT(n) AS noteCount, COALESCE(SUM(n.payeeAmount), 0) AS totalAmount, "
+            + "MAX(n.createdAt) AS lastNoteAt FROM NoteEntity n WHERE n.user.userId = :userId")
+    NoteTotals findTotalsByUser(@Param("userId") Long userId);
+
+    @Query("SELECT n.user.userId AS userId, COUNT(n) AS noteCount, COALESCE(SUM(n.payeeAmount), 0) AS totalAmount, "
+            + "MAX(n.createdAt) AS lastNoteAt FROM NoteEntity n WHERE n.user.userId IN :userIds GROUP BY n.user.userId")
+    List<UserNoteTotals> findTotalsByUsers(@Param("userIds") Collection<Long> userIds);
+
+    // Single-statement deletes; userId may be null to skip the owner check
+    @Modifying
+    @Query("DELETE FROM NoteEntity n WHERE n.notesId IN :ids AND (:userId IS NULL OR n.user.userId = :userId)")
+    int deleteByIds(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    @Query("SELECT n.notesId FROM NoteEntity n WHERE n.user.userId = :userId ORDER BY n.notesId")
+    List<Long> findIdsByUser(@Param("userId") Long userId, Pageable pageable);
+
+    // Notes the re-encoding job can compress: stored plain (no 0xFF header) and at least :threshold bytes. No locks.
+    @Query(value = "SELECT notes_id FROM notes WHERE notes_id > :afterId AND OCTET_LENGTH(body) >= :threshold "
+            + "AND SUBSTRING(body, 1, 1) <> X'FF' ORDER BY notes_id LIMIT :limit", nativeQuery = true)
+    List<Long> findCompressibleIdsAfter(@Param("afterId") Long afterId, @Param("threshold") int threshold,
+            @Param("limit") int limit);
+
+    // Raw stored bodies (bypassing NoteBodyConverter) of those notes, locked and filtered again for re-encoding
+    @Query(value = "SELECT notes_id, body FROM notes WHERE notes_id IN :ids AND OCTET_LENGTH(body) >= :threshold "
+            + "AND SUBSTRING(body, 1, 1) <> X'FF' FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockCompressibleBodies(@Param("ids") Collection<Long> ids, @Param("threshold") int threshold);
+
+    @Modifying
+    @Query(value = "UPDATE notes SET body = :body WHERE notes_id = :id", nativeQuery = true)
+    int updateStoredBody(@Param("id") Long id, @Param("body") byte[] body);
+
+    interface NoteSummary {
+        Long getNotesId();
+        String getTitle();
+        String getPayeeAddress();
+        BigDecimal getPayeeAmount();
+        LocalDateTime getCreatedAt();
+    }
+
+    interface NoteTotals {
+        long getNoteCount();
+        BigDecimal getTotalAmount();
+        LocalDateTime getLastNoteAt();
+    }
+
+    interface UserNoteTotals extends NoteTotals {
+        Long getUserId();
+    }
 }
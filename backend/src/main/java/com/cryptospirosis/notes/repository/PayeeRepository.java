@@ -0,0 +1,46 @@
+package com.cryptospirosis.notes.repository;
+
+import com.cryptospirosis.notes.entity.PayeeEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PayeeRepository extends JpaRepository<PayeeEntity, Long> {
+    Optional<PayeeEntity> findByUser_UserIdAndAddress(Long userId, String address);
+
+    // Locking read: returns the latest committed row, not the transaction's snapshot
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT p FROM PayeeEntity p WHERE p.user.userId = :userId AND p.address = :address")
+    Optional<PayeeEntity> lockByUserAndAddress(@Param("userId") Long userId, @Param("address") String address);
+
+    List<PayeeEntity> findByUser_UserIdOrderByAddress(Long userId);
+
+    // Applied in place so concurrent note writes never lose a counter update
+    @Modifying
+    @Query("UPDATE PayeeEntity p SET p.noteCount = p.noteCount + :notes, "
+            + "p.totalAmount = p.totalAmount + :amount WHERE p.payeeId = :payeeId")
+    int adjustTotals(@Param("payeeId") Long payeeId, @Param("notes") long notes, @Param("amount") BigDecimal amount);
+
+    // Take the given notes out of their payees' totals without loading them; same filter as NoteRepository.deleteByIds
+    @Modifying
+    @Query("UPDATE PayeeEntity p SET "
+            + "p.noteCount = p.noteCount - (SELECT COUNT(n) FROM NoteEntity n WHERE n.payee.payeeId = p.payeeId "
+            + "AND n.notesId IN :ids AND (:userId IS NULL OR n.user.userId = :userId)), "
+            + "p.totalAmount = p.totalAmount - (SELECT COALESCE(SUM(n.payeeAmount), 0) FROM NoteEntity n "
+            + "WHERE n.payee.payeeId = p.payeeId AND n.notesId IN :ids AND (:userId IS NULL OR n.user.userId = :userId)) "
+            + "WHERE p.payeeId IN (SELECT n.payee.payeeId FROM NoteEntity n "
+            + "WHERE n.notesId IN :ids AND (:userId IS NULL OR n.user.userId = :userId))")
+    int releaseNotes(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM PayeeEntity p WHERE p.user.userId = :userId")
+    int deleteByUser(@Param("userId") Long userId);
+}
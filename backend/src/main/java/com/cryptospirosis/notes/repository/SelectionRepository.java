@@ -0,0 +1,145 @@
+package com.cryptospirosis.notes.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Queries that select only the columns a GraphQL client asked for. Each row is a map keyed by
+ * field name. Field names are looked up in fixed tables, so nothing outside them (the user's
+ * password above all) can ever be selected, and no client input reaches the JPQL text.
+ */
+@Repository
+public class SelectionRepository {
+
+    private static final Map<String, String> USER_COLUMNS = Map.of(
+            "id", "u.userId",
+            "username", "u.username",
+            "email", "u.email");
+
+    private static final Map<String, String> NOTE_COLUMNS = Map.of(
+            "id", "n.notesId",
+            "title", "n.title",
+            "body", "n.body",
+            "payeeAddress", "p.address",
+            "payeeAmount", "n.payeeAmount",
+            "createdAt", "n.createdAt",
+            "userId", "n.user.userId");
+
+    private static final Map<String, String> PAYEE_COLUMNS = Map.of(
+            "id", "p.payeeId",
+            "address", "p.address",
+            "noteCount", "p.noteCount",
+            "totalAmount", "p.totalAmount",
+            "userId", "p.user.userId");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<Map<String, Object>> findUsersAfter(Collection<String> fields, Long afterId, int limit) {
+        return select(USER_COLUMNS, List.of("id"), fields,
+                "FROM UserEntity u WHERE u.userId > :afterId ORDER BY u.userId", Map.of("afterId", afterId), limit);
+    }
+
+    public List<Map<String, Object>> findUsersByIds(Collection<String> fields, Collection<Long> ids) {
+        return select(USER_COLUMNS, List.of("id"), fields,
+                "FROM UserEntity u WHERE u.userId IN :ids", Map.of("ids", ids), 0);
+    }
+
+    public Optional<Map<String, Object>> findNote(Collection<String> fields, Long id) {
+        return select(NOTE_COLUMNS, List.of("id", "userId"), fields,
+                noteSource(fields) + " WHERE n.notesId = :id", Map.of("id", id), 0).stream().findFirst();
+    }
+
+    // Newest notes first, at most `first` per user; `after` is the last note of the previous page
+    public List<Map<String, Object>> findNotesByUsers(Collection<String> fields, Collection<Long> userIds,
+            int first, Long after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of("userIds", userIds, "first", first));
+        String cursor = "";
+        if (after != null) {
+            List<LocalDateTime> createdAt = entityManager.createQuery(
+                            "SELECT n.createdAt FROM NoteEntity n WHERE n.notesId = :after", LocalDateTime.class)
+                    .setParameter("after", after)
+                    .getResultList();
+            if (createdAt.isEmpty()) {
+                return List.of();
+            }
+            cursor = " AND (w.createdAt < :afterCreatedAt OR (w.createdAt = :afterCreatedAt AND w.notesId < :after))";
+            parameters.put("afterCreatedAt", createdAt.get(0));
+            parameters.put("after", after);
+        }
+        return select(NOTE_COLUMNS, List.of("id", "userId"), fields,
+                noteSource(fields) + " JOIN (SELECT w.notesId AS id, ROW_NUMBER() OVER (PARTITION BY w.user.userId "
+                        + "ORDER BY w.createdAt DESC, w.notesId DESC) AS position FROM NoteEntity w "
+                        + "WHERE w.user.userId IN :userIds" + cursor + ") r ON r.id = n.notesId "
+                        + "WHERE r.position <= :first ORDER BY n.createdAt DESC, n.notesId DESC",
+                parameters, 0);
+    }
+
+    // By address, at most `first` per user; `after` is the last payee of the previous page
+    public List<Map<String, Object>> findPayeesByUsers(Collection<String> fields, Collection<Long> userIds,
+            int first, Long after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of("userIds", userIds, "first", first));
+        String cursor = "";
+        if (after != null) {
+            List<String> address = entityManager.createQuery(
+                            "SELECT p.address FROM PayeeEntity p WHERE p.payeeId = :after", String.class)
+                    .setParameter("after", after)
+                    .getResultList();
+            if (address.isEmpty()) {
+                return List.of();
+            }
+            cursor = " AND w.address > :afterAddress";
+            parameters.put("afterAddress", address.get(0));
+        }
+        return select(PAYEE_COLUMNS, List.of("id", "userId"), fields,
+                "FROM PayeeEntity p JOIN (SELECT w.payeeId AS id, ROW_NUMBER() OVER (PARTITION BY w.user.userId "
+                        + "ORDER BY w.address) AS position FROM PayeeEntity w "
+                        + "WHERE w.user.userId IN :userIds" + cursor + ") r ON r.id = p.payeeId "
+                        + "WHERE r.position <= :first ORDER BY p.address",
+                parameters, 0);
+    }
+
+    // The payee join is only needed for the address
+    private static String noteSource(Collection<String> fields) {
+        return fields.contains("payeeAddress") ? "FROM NoteEntity n LEFT JOIN n.payee p" : "FROM NoteEntity n";
+    }
+
+    private List<Map<String, Object>> select(Map<String, String> columns, List<String> required,
+            Collection<String> fields, String from, Map<String, Object> parameters, int limit) {
+        List<String> selected = new ArrayList<>(required);
+        fields.stream()
+                .filter(columns::containsKey)
+                .filter(field -> !selected.contains(field))
+                .forEach(selected::add);
+
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        for (int i = 0; i < selected.size(); i++) {
+            jpql.append(i == 0 ? "" : ", ").append(columns.get(selected.get(i)));
+        }
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.append(' ').append(from).toString(), Object[].class);
+        parameters.forEach(query::setParameter);
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Object[] values : query.getResultList()) {
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 0; i < selected.size(); i++) {
+                row.put(selected.get(i), values[i]);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
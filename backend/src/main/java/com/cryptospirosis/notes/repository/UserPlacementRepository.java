@@ -0,0 +1,40 @@
+package com.cryptospirosis.notes.repository;
+
+import com.cryptospirosis.notes.entity.UserPlacementEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface UserPlacementRepository extends JpaRepository<UserPlacementEntity, Long> {
+
+    // Conditional update, so only one migration of a user can be running at a time
+    @Modifying
+    @Query("UPDATE UserPlacementEntity p SET p.migrating = true WHERE p.userId = :userId AND p.migrating = false")
+    int startMigration(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE UserPlacementEntity p SET p.shard = :shard, p.migrating = false WHERE p.userId = :userId")
+    int finishMigration(@Param("userId") Long userId, @Param("shard") String shard);
+
+    // A projection, so the values come from the database and never from a persistence context
+    // that loaded the placement before the caller locked the user
+    @Query("SELECT p.shard AS shard, p.migrating AS migrating FROM UserPlacementEntity p WHERE p.userId = :userId")
+    Optional<PlacementState> findStateByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT p.shard AS shard, COUNT(p) AS users FROM UserPlacementEntity p GROUP BY p.shard")
+    List<ShardUsers> countUsersByShard();
+
+    interface PlacementState {
+        String getShard();
+        boolean isMigrating();
+    }
+
+    interface ShardUsers {
+        String getShard();
+        long getUsers();
+    }
+}
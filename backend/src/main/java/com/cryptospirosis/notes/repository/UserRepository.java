@@ -1,16 +1,85 @@
 package com.cryptospirosis.notes.repository;
 
 import com.cryptospirosis.notes.entity.UserEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
     
     Optional<UserEntity> findByUsername(String username);
     Optional<UserEntity> findByEmail(String email);
+    Optional<UserSummary> findSummaryByUsername(String username);
+    Optional<UserSummary> findSummaryByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    // Note writes hold the user's row shared until they commit; a shard migration takes it
+    // exclusively to freeze the user, so it waits for every write already running
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT u FROM UserEntity u WHERE u.userId = :userId")
+    Optional<UserEntity> lockForNoteWrite(@Param("userId") Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM UserEntity u WHERE u.userId = :userId")
+    Optional<UserEntity> lockForMigration(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM UserEntity u WHERE u.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT u.userId FROM UserEntity u WHERE u.userId > :afterId ORDER BY u.userId")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Streams in fetch-size chunks (MySQL needs useCursorFetch=true); must run inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.username AS username, u.email AS email FROM UserEntity u")
+    Stream<UserIdentity> streamAllIdentities();
+
+    // Keyset pages of the user directory. The prefix searches range-scan the unique indexes on
+    // username and email, and page on the searched column so the scan resumes where it left off.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT u.userId AS userId, u.username AS username, u.email AS email FROM UserEntity u "
+            + "WHERE u.userId > :afterId ORDER BY u.userId")
+    Stream<UserSummary> streamSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT u.userId AS userId, u.username AS username, u.email AS email FROM UserEntity u "
+            + "WHERE u.username LIKE :prefix ESCAPE '!' AND u.username > :after ORDER BY u.username")
+    Stream<UserSummary> streamSummariesByUsernamePrefix(@Param("prefix") String prefix, @Param("after") String after,
+            Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT u.userId AS userId, u.username AS username, u.email AS email FROM UserEntity u "
+            + "WHERE u.email LIKE :prefix ESCAPE '!' AND u.email > :after ORDER BY u.email")
+    Stream<UserSummary> streamSummariesByEmailPrefix(@Param("prefix") String prefix, @Param("after") String after,
+            Pageable pageable);
+
+    // What the user endpoints expose; never the password hash
+    interface UserSummary {
+        Long getUserId();
+        String getUsername();
+        String getEmail();
+    }
+
+    interface UserIdentity {
+        String getUsername();
+        String getEmail();
+    }
 }
@@ -2,9 +2,15 @@ package com.cryptospirosis.notes.security;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -20,12 +26,18 @@ import jakarta.servlet.http.HttpServletResponse;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter {
+    private static final List<GrantedAuthority> OPERATOR = List.of(new SimpleGrantedAuthority("ROLE_OPERATOR"));
+
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
+    private final Set<String> operators;
 
-    public JwtFilter(JwtUtil jwtUtil, UserRepository userRepository) {
+    public JwtFilter(JwtUtil jwtUtil, UserRepository userRepository,
+            @Value("${notes.operators:}") List<String> operators) {
         this.jwtUtil = jwtUtil;
         this.userRepository = userRepository;
+        this.operators = operators.stream().map(String::trim).filter(email -> !email.isEmpty())
+                .collect(Collectors.toSet());
     }
 
 @Override
@@ -60,7 +72,8 @@ protected void doFilterInternal(HttpServletRequest request, HttpServletResponse
             }
 
             UsernamePasswordAuthenticationToken authToken =
-                    new UsernamePasswordAuthenticationToken(user.getEmail(), null, Collections.emptyList());
+                    new UsernamePasswordAuthenticationToken(user.getEmail(), null,
+                            operators.contains(user.getEmail()) ? OPERATOR : Collections.emptyList());
 
             SecurityContextHolder.getContext().setAuthentication(authToken);
         } else {
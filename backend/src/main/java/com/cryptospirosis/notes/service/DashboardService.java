@@ -0,0 +1,101 @@
+package com.cryptospirosis.notes.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.cryptospirosis.notes.entity.UserEntity;
+import com.cryptospirosis.notes.repository.NoteRepository;
+import com.cryptospirosis.notes.repository.NoteRepository.NoteSummary;
+import com.cryptospirosis.notes.repository.NoteRepository.NoteTotals;
+import com.cryptospirosis.notes.repository.UserRepository;
+
+@Service
+public class DashboardService {
+
+    private final UserRepository userRepository;
+    private final NoteRepository noteRepository;
+    private final ShardRouter shardRouter;
+    private final Executor dashboardExecutor;
+    private final int pageSize;
+
+    public DashboardService(UserRepository userRepository, NoteRepository noteRepository, ShardRouter shardRouter,
+            @Qualifier("dashboardExecutor") Executor dashboardExecutor,
+            @Value("${notes.dashboard.page-size:20}") int pageSize) {
+        this.userRepository = userRepository;
+        this.noteRepository = noteRepository;
+        this.shardRouter = shardRouter;
+        this.dashboardExecutor = dashboardExecutor;
+        this.pageSize = pageSize;
+    }
+
+    // Everything the dashboard needs after login; the note page and the totals are queried in parallel
+    public Dashboard getDashboard(String email) {
+        UserEntity user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UserNotFoundException("User not found with email: " + email));
+        Long userId = user.getUserId();
+        String shard = shardRouter.shardOf(userId);
+
+        CompletableFuture<List<NoteSummary>> notes = CompletableFuture.supplyAsync(() -> shardRouter.onShard(shard,
+                () -> noteRepository.findSummariesByUser(userId, PageRequest.of(0, pageSize))), dashboardExecutor);
+        CompletableFuture<NoteTotals> totals = CompletableFuture.supplyAsync(() -> shardRouter.onShard(shard,
+                () -> noteRepository.findTotalsByUser(userId)), dashboardExecutor);
+
+        try {
+            return new Dashboard(user, notes.join(), totals.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public record Dashboard(UserEntity user, List<NoteSummary> notes, NoteTotals totals) {
+
+        // One digest per section, so a client can tell which part changed
+        public String etag() {
+            List<Object> noteValues = new ArrayList<>();
+            for (NoteSummary note : notes) {
+                Collections.addAll(noteValues, note.getNotesId(), note.getTitle(), note.getPayeeAddress(),
+                        note.getPayeeAmount(), note.getCreatedAt());
+            }
+            return "\"" + digest(List.of(user.getUserId(), user.getUsername(), user.getEmail()))
+                    + "-" + digest(noteValues)
+                    + "-" + digest(Arrays.asList(totals.getNoteCount(), totals.getTotalAmount(), totals.getLastNoteAt()))
+                    + "\"";
+        }
+
+        // First 64 bits of SHA-256 over the values. Each value is length-prefixed, so neither
+        // ("ab", "c") and ("a", "bc") nor a null and the text "null" digest alike.
+        private static String digest(List<?> values) {
+            MessageDigest sha256;
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            for (Object value : values) {
+                byte[] bytes = value == null ? new byte[0] : value.toString().getBytes(StandardCharsets.UTF_8);
+                sha256.update(length.clear().putInt(value == null ? -1 : bytes.length).array());
+                sha256.update(bytes);
+            }
+            return HexFormat.of().formatHex(sha256.digest(), 0, 8);
+        }
+    }
+}
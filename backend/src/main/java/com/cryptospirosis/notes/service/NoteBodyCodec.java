@@ -0,0 +1,134 @@
+package com.cryptospirosis.notes.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Encodes note bodies for storage. Bodies at or above the threshold are deflated
+ * behind a small header; shorter bodies (and legacy rows) are stored as plain UTF-8.
+ *
+ * Header layout: 0xFF magic, codec id, uncompressed length (4 bytes, big endian).
+ * 0xFF never occurs in UTF-8, so plain rows can never be mistaken for compressed ones.
+ */
+@Component
+public class NoteBodyCodec {
+
+    private static final byte MAGIC = (byte) 0xFF;
+    private static final byte CODEC_DEFLATE = 1;
+    private static final int HEADER_LENGTH = 6;
+    // Deflate cannot shrink input by more than about 1032:1
+    private static final long MAX_DEFLATE_RATIO = 1032;
+
+    private final int threshold;
+    private final Counter rawBytes;
+    private final Counter storedBytes;
+
+    public NoteBodyCodec(@Value("${notes.body-compression.threshold:512}") int threshold, MeterRegistry registry) {
+        this.threshold = threshold;
+        this.rawBytes = Counter.builder("notes.body.raw.bytes")
+                .description("UTF-8 size of note bodies written")
+                .baseUnit("bytes")
+                .register(registry);
+        this.storedBytes = Counter.builder("notes.body.stored.bytes")
+                .description("Stored size of note bodies written")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("notes.body.compression.ratio", this, NoteBodyCodec::compressionRatio)
+                .description("Stored bytes per raw byte of note bodies written since startup")
+                .register(registry);
+    }
+
+    public byte[] encode(String body) {
+        byte[] raw = body.getBytes(StandardCharsets.UTF_8);
+        byte[] stored = raw.length < threshold ? raw : deflate(raw);
+        rawBytes.increment(raw.length);
+        storedBytes.increment(stored.length);
+        return stored;
+    }
+
+    public String decode(byte[] stored) {
+        if (!isCompressed(stored)) {
+            return new String(stored, StandardCharsets.UTF_8);
+        }
+        if (stored[1] != CODEC_DEFLATE) {
+            throw new IllegalStateException("Unknown note body codec: " + stored[1]);
+        }
+        return new String(inflate(stored), StandardCharsets.UTF_8);
+    }
+
+    public boolean isCompressed(byte[] stored) {
+        return stored.length >= HEADER_LENGTH && stored[0] == MAGIC;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    private double compressionRatio() {
+        double raw = rawBytes.count();
+        return raw == 0 ? 1.0 : storedBytes.count() / raw;
+    }
+
+    // Falls back to the plain bytes when deflating does not pay for the header
+    private byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + HEADER_LENGTH);
+            out.write(MAGIC);
+            out.write(CODEC_DEFLATE);
+            out.writeBytes(ByteBuffer.allocate(4).putInt(raw.length).array());
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+                if (out.size() >= raw.length) {
+                    return raw;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] inflate(byte[] stored) {
+        int length = ByteBuffer.wrap(stored, 2, 4).getInt();
+        // A damaged header must not turn into a huge (or negative) allocation
+        if (length < 0 || length > (stored.length - HEADER_LENGTH) * MAX_DEFLATE_RATIO) {
+            throw new IllegalStateException("Corrupt note body: impossible length " + length);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored, HEADER_LENGTH, stored.length - HEADER_LENGTH);
+            byte[] raw = new byte[length];
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int read = inflater.inflate(raw, offset, length - offset);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += read;
+            }
+            if (offset != length) {
+                throw new IllegalStateException("Truncated note body: expected " + length + " bytes, got " + offset);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt note body", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.cryptospirosis.notes.service;
+
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.cryptospirosis.notes.repository.NoteRepository;
+
+/**
+ * Background job that compresses note bodies written before compression was enabled
+ * (or before the threshold was lowered). Walks the table in id order; the database picks
+ * the plain rows above the threshold without locking anything, and only those rows are
+ * locked (and checked again) in the transaction that rewrites them. Each shard is walked in turn.
+ */
+@Component
+public class NoteBodyReencodingJob {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteBodyReencodingJob.class);
+
+    private final NoteRepository noteRepository;
+    private final NoteBodyCodec codec;
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+
+    public NoteBodyReencodingJob(NoteRepository noteRepository, NoteBodyCodec codec, ShardRouter shardRouter,
+            @Value("${notes.body-compression.reencode.batch-size:200}") int batchSize) {
+        this.noteRepository = noteRepository;
+        this.codec = codec;
+        this.shardRouter = shardRouter;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${notes.body-compression.reencode.initial-delay:PT1M}",
+            fixedDelayString = "${notes.body-compression.reencode.interval:PT6H}")
+    public void reencodeAll() {
+        for (String shard : shardRouter.getShards()) {
+            long afterId = 0;
+            int rewritten = 0;
+            List<Long> ids;
+            do {
+                long from = afterId;
+                ids = shardRouter.onShardReadOnly(shard,
+                        () -> noteRepository.findCompressibleIdsAfter(from, codec.getThreshold(), batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                afterId = ids.get(ids.size() - 1);
+                List<Long> batch = ids;
+                rewritten += shardRouter.onShard(shard, () -> reencodeBatch(batch));
+            } while (ids.size() == batchSize);
+
+            if (rewritten > 0) {
+                log.info("Re-encoded {} note bodies on shard {}", rewritten, shard);
+            }
+        }
+    }
+
+    // Rows written since the scan are filtered out again by the locking read
+    private int reencodeBatch(List<Long> ids) {
+        int rewritten = 0;
+        for (Object[] row : noteRepository.lockCompressibleBodies(ids, codec.getThreshold())) {
+            long id = ((Number) row[0]).longValue();
+            byte[] stored = toBytes(row[1]);
+            if (stored.length < codec.getThreshold() || codec.isCompressed(stored)) {
+                continue;
+            }
+            byte[] encoded = codec.encode(codec.decode(stored));
+            if (encoded.length < stored.length) {
+                noteRepository.updateStoredBody(id, encoded);
+                rewritten++;
+            }
+        }
+        return rewritten;
+    }
+
+    // MySQL hands BLOB columns back as byte[], H2 as java.sql.Blob
+    private static byte[] toBytes(Object value) {
+        if (value instanceof Blob blob) {
+            try {
+                return blob.getBytes(1, (int) blob.length());
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not read note body", e);
+            }
+        }
+        return (byte[]) value;
+    }
+}
@@ -3,9 +3,12 @@ package com.cryptospirosis.notes.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import com.cryptospirosis.notes.entity.NoteEntity;
+import com.cryptospirosis.notes.entity.PayeeEntity;
 import com.cryptospirosis.notes.entity.UserEntity;
 import com.cryptospirosis.notes.repository.NoteRepository;
 import com.cryptospirosis.notes.repository.UserRepository;
@@ -15,18 +18,31 @@ public class NoteService {
 
     private final NoteRepository noteRepository;
     private final UserRepository userRepository;
+    private final PayeeService payeeService;
+    private final ShardRouter shardRouter;
+    private final int deleteChunkSize;
 
-    public NoteService(NoteRepository noteRepository, UserRepository userRepository) {
+    public NoteService(NoteRepository noteRepository, UserRepository userRepository, PayeeService payeeService,
+            ShardRouter shardRouter, @Value("${notes.delete.chunk-size:500}") int deleteChunkSize) {
         this.noteRepository = noteRepository;
         this.userRepository = userRepository;
+        this.payeeService = payeeService;
+        this.shardRouter = shardRouter;
+        this.deleteChunkSize = deleteChunkSize;
     }
 
+    // Every operation runs in a transaction on the shard holding the user's notes, see ShardRouter
+
     public List<NoteEntity> getNotesByUser(Long userId) {
-        return noteRepository.findByUser_UserId(userId);
+        return shardRouter.onUserShard(userId, () -> noteRepository.findByUser_UserId(userId));
     }
 
     public NoteEntity createNote(Long userId, NoteEntity note) {
-        // fetch the user
+        return shardRouter.onUserShardForWrite(userId, () -> insertNote(userId, note));
+    }
+
+    private NoteEntity insertNote(Long userId, NoteEntity note) {
+        // fetch the user (off the main shard, its stand-in row)
         UserEntity user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -36,26 +52,68 @@ public class NoteService {
         // set createdAt
         note.setCreatedAt(java.time.LocalDateTime.now());
 
+        // reference the interned payee instead of storing the address on the note
+        PayeeEntity payee = payeeService.intern(user, note.getPayeeAddress());
+        payeeService.adjustTotals(payee, 1, note.getPayeeAmount());
+        note.setPayee(payee);
+        note.setPayeeAddress(payee == null ? null : note.getPayeeAddress().trim());
+
         return noteRepository.save(note);
     }
 
     public Optional<NoteEntity> getNoteById(Long id) {
-        return noteRepository.findById(id);
+        return shardRouter.onNoteShard(id, () -> noteRepository.findById(id));
     }
 
     public NoteEntity updateNote(Long id, NoteEntity updatedNote) {
-        return noteRepository.findById(id)
+        return shardRouter.onNoteShardForWrite(id, () -> noteRepository.findById(id)
                 .map(note -> {
+                    PayeeEntity payee = payeeService.intern(note.getUser(), updatedNote.getPayeeAddress());
+                    payeeService.adjustTotals(note.getPayee(), -1, note.getPayeeAmount());
+                    payeeService.adjustTotals(payee, 1, updatedNote.getPayeeAmount());
+
                     note.setTitle(updatedNote.getTitle());
                     note.setBody(updatedNote.getBody());
-                    note.setPayeeAddress(updatedNote.getPayeeAddress());
+                    note.setPayee(payee);
+                    note.setPayeeAddress(payee == null ? null : updatedNote.getPayeeAddress().trim());
                     note.setPayeeAmount(updatedNote.getPayeeAmount());
                     return noteRepository.save(note);
                 })
-                .orElseThrow(() -> new RuntimeException("Note not found"));
+                .orElseThrow(() -> new RuntimeException("Note not found")));
+    }
+
+    public int deleteNote(Long id) {
+        return shardRouter.onNoteShardForWrite(id, () -> deleteChunks(null, List.of(id)));
+    }
+
+    public int deleteNote(Long userId, Long id) {
+        return deleteNotes(userId, List.of(id));
+    }
+
+    // Bulk delete without loading the notes; ids not owned by userId are skipped
+    public int deleteNotes(Long userId, List<Long> ids) {
+        return shardRouter.onUserShardForWrite(userId, () -> deleteChunks(userId, ids));
+    }
+
+    private int deleteChunks(Long userId, List<Long> ids) {
+        int deleted = 0;
+        for (int from = 0; from < ids.size(); from += deleteChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + deleteChunkSize));
+            payeeService.releaseNotes(chunk, userId);
+            deleted += noteRepository.deleteByIds(chunk, userId);
+        }
+        return deleted;
+    }
+
+    // Deletes the next chunk of a user's notes; used when purging an account, so payee totals are not kept
+    public int purgeNotesChunk(Long userId) {
+        return shardRouter.onUserShardForWrite(userId, () -> {
+            List<Long> ids = noteRepository.findIdsByUser(userId, PageRequest.of(0, deleteChunkSize));
+            return ids.isEmpty() ? 0 : noteRepository.deleteByIds(ids, userId);
+        });
     }
 
-    public void deleteNote(Long id) {
-        noteRepository.deleteById(id);
+    public int getDeleteChunkSize() {
+        return deleteChunkSize;
     }
 }
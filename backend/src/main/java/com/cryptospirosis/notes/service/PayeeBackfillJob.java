@@ -0,0 +1,106 @@
+package com.cryptospirosis.notes.service;
+
+import java.math.BigDecimal;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.cryptospirosis.notes.entity.PayeeEntity;
+
+/**
+ * One-off migration for notes written before payees were interned: their address is still in the
+ * legacy notes.payee_address column and they have no payee_id. Walks each shard in id order, one
+ * locked batch per transaction, interns the address into the user's address book, adds the note to
+ * the payee's totals and clears the legacy value so the note is never counted twice. Does nothing on
+ * schemas created without the legacy column.
+ */
+@Component
+public class PayeeBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PayeeBackfillJob.class);
+
+    private final PayeeService payeeService;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public PayeeBackfillJob(PayeeService payeeService, ShardRouter shardRouter, JdbcTemplate jdbcTemplate,
+            @Value("${notes.payees.backfill.batch-size:200}") int batchSize) {
+        this.payeeService = payeeService;
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAll() {
+        for (String shard : shardRouter.getShards()) {
+            if (!shardRouter.onShardReadOnly(shard, this::hasLegacyColumn)) {
+                continue;
+            }
+            long afterId = 0;
+            int interned = 0;
+            BatchResult batch;
+            do {
+                long from = afterId;
+                batch = shardRouter.onShard(shard, () -> backfillBatch(from));
+                afterId = batch.lastId();
+                interned += batch.interned();
+            } while (batch.scanned() == batchSize);
+
+            if (interned > 0) {
+                log.info("Moved {} legacy payee addresses into the address book on shard {}", interned, shard);
+            }
+        }
+    }
+
+    private BatchResult backfillBatch(long afterId) {
+        List<LegacyNote> notes = jdbcTemplate.query(
+                "SELECT notes_id, user_id, payee_address, payee_amount FROM notes "
+                        + "WHERE notes_id > ? AND payee_address IS NOT NULL AND payee_id IS NULL "
+                        + "ORDER BY notes_id LIMIT ? FOR UPDATE",
+                (rs, row) -> new LegacyNote(rs.getLong("notes_id"), rs.getLong("user_id"),
+                        rs.getString("payee_address"), rs.getBigDecimal("payee_amount")),
+                afterId, batchSize);
+        long lastId = afterId;
+        int interned = 0;
+        for (LegacyNote note : notes) {
+            lastId = note.notesId();
+            // Blank addresses only lose the legacy value, as they would on a note update
+            PayeeEntity payee = payeeService.intern(note.userId(), note.address());
+            jdbcTemplate.update("UPDATE notes SET payee_id = ?, payee_address = NULL WHERE notes_id = ?",
+                    payee == null ? null : payee.getPayeeId(), note.notesId());
+            if (payee != null) {
+                payeeService.adjustTotals(payee, 1, note.amount());
+                interned++;
+            }
+        }
+        return new BatchResult(notes.size(), lastId, interned);
+    }
+
+    private boolean hasLegacyColumn() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            DatabaseMetaData meta = con.getMetaData();
+            boolean upper = meta.storesUpperCaseIdentifiers();
+            try (ResultSet columns = meta.getColumns(con.getCatalog(), null,
+                    upper ? "NOTES" : "notes", upper ? "PAYEE_ADDRESS" : "payee_address")) {
+                return columns.next();
+            }
+        });
+    }
+
+    private record LegacyNote(long notesId, long userId, String address, BigDecimal amount) {
+    }
+
+    private record BatchResult(int scanned, long lastId, int interned) {
+    }
+}
@@ -0,0 +1,125 @@
+package com.cryptospirosis.notes.service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.cryptospirosis.notes.config.ShardRoutingDataSource;
+import com.cryptospirosis.notes.entity.PayeeEntity;
+import com.cryptospirosis.notes.entity.UserEntity;
+import com.cryptospirosis.notes.repository.PayeeRepository;
+
+@Service
+public class PayeeService {
+
+    private final PayeeRepository payeeRepository;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+
+    // (shard, userId, address) -> payeeId for recently used payees; only committed rows are cached.
+    // The shard is part of the key because a migrated user's payees get new ids on the new shard.
+    private final Map<PayeeKey, Long> internedIds;
+
+    public PayeeService(PayeeRepository payeeRepository, ShardRouter shardRouter, JdbcTemplate jdbcTemplate,
+            @Value("${notes.payees.cache-size:10000}") int cacheSize) {
+        this.payeeRepository = payeeRepository;
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.internedIds = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PayeeKey, Long> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public List<PayeeEntity> getPayeesByUser(Long userId) {
+        return shardRouter.onUserShard(userId, () -> payeeRepository.findByUser_UserIdOrderByAddress(userId));
+    }
+
+    // Resolve the user's payee for an address, creating it on first use. Returns null for blank addresses.
+    // Runs inside NoteService's routed transaction, so the bound shard is the user's.
+    public PayeeEntity intern(UserEntity user, String address) {
+        return intern(user.getUserId(), address);
+    }
+
+    public PayeeEntity intern(Long userId, String address) {
+        if (address == null || address.isBlank()) {
+            return null;
+        }
+        PayeeKey key = new PayeeKey(ShardRoutingDataSource.currentShard(), userId, address.trim());
+
+        Long payeeId = internedIds.get(key);
+        if (payeeId != null) {
+            return payeeRepository.getReferenceById(payeeId);
+        }
+
+        PayeeEntity payee = payeeRepository.findByUser_UserIdAndAddress(key.userId(), key.address())
+                .orElseGet(() -> insert(key));
+        cacheOnCommit(key, payee.getPayeeId());
+        return payee;
+    }
+
+    // Keep the address book totals in step with a note gaining (+1) or losing (-1) this payee
+    public void adjustTotals(PayeeEntity payee, int notes, BigDecimal amount) {
+        if (payee == null) {
+            return;
+        }
+        BigDecimal delta = amount == null ? BigDecimal.ZERO : amount;
+        payeeRepository.adjustTotals(payee.getPayeeId(), notes, notes < 0 ? delta.negate() : delta);
+    }
+
+    // Counterpart of NoteRepository.deleteByIds; call it first, in the same transaction
+    public void releaseNotes(Collection<Long> noteIds, Long userId) {
+        payeeRepository.releaseNotes(noteIds, userId);
+    }
+
+    // Drop a user's address book once their notes are gone
+    public int deletePayeesByUser(Long userId) {
+        synchronized (internedIds) {
+            internedIds.keySet().removeIf(key -> key.userId().equals(userId));
+        }
+        return payeeRepository.deleteByUser(userId);
+    }
+
+    // Inserted in the caller's transaction. An insert racing ours waits on the unique key and then
+    // fails; MySQL and H2 only undo the failed statement, so the transaction carries on. The locking
+    // read sees the winner's row even when it was committed after this transaction's snapshot.
+    private PayeeEntity insert(PayeeKey key) {
+        try {
+            jdbcTemplate.update("INSERT INTO payees (user_id, address, note_count, total_amount) VALUES (?, ?, 0, 0)",
+                    key.userId(), key.address());
+        } catch (DuplicateKeyException e) {
+            // interned concurrently
+        }
+        return payeeRepository.lockByUserAndAddress(key.userId(), key.address())
+                .orElseThrow(() -> new IllegalStateException("Payee vanished while interning " + key.address()));
+    }
+
+    // A rollback could still remove a payee inserted in the running transaction
+    private void cacheOnCommit(PayeeKey key, Long payeeId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            internedIds.put(key, payeeId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                internedIds.put(key, payeeId);
+            }
+        });
+    }
+
+    private record PayeeKey(String shard, Long userId, String address) {
+    }
+}
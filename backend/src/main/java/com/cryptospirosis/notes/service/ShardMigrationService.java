@@ -0,0 +1,243 @@
+package com.cryptospirosis.notes.service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+
+import com.cryptospirosis.notes.config.ShardRoutingDataSource;
+import com.cryptospirosis.notes.config.ShardingProperties;
+import com.cryptospirosis.notes.entity.UserPlacementEntity;
+import com.cryptospirosis.notes.repository.NoteRepository;
+import com.cryptospirosis.notes.repository.UserPlacementRepository;
+import com.cryptospirosis.notes.repository.UserRepository;
+
+/**
+ * Moves users between shards while the application keeps serving them. A migration freezes
+ * the user's note writes (reads continue from the old shard) under the user's row lock, which
+ * running writes hold until they commit, copies payees and notes in batches, flips the
+ * placement and then clears the old copy.
+ * Notes keep their ids (see NoteIdAllocator), payees get new ones from the target shard's id
+ * block; bodies are copied as stored.
+ */
+@Service
+public class ShardMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardMigrationService.class);
+
+    private static final String MAIN = ShardRoutingDataSource.MAIN_SHARD;
+
+    private final ShardRouter shardRouter;
+    private final UserRepository userRepository;
+    private final UserPlacementRepository placementRepository;
+    private final NoteRepository noteRepository;
+    private final PayeeService payeeService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public ShardMigrationService(ShardRouter shardRouter, UserRepository userRepository,
+            UserPlacementRepository placementRepository, NoteRepository noteRepository,
+            PayeeService payeeService, JdbcTemplate jdbcTemplate, ShardingProperties properties) {
+        this.shardRouter = shardRouter;
+        this.userRepository = userRepository;
+        this.placementRepository = placementRepository;
+        this.noteRepository = noteRepository;
+        this.payeeService = payeeService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = properties.getMigrationBatchSize();
+    }
+
+    // Users per shard; users placed before sharding count towards main
+    public Map<String, Long> getUsersPerShard() {
+        return shardRouter.onShard(MAIN, () -> {
+            Map<String, Long> users = new LinkedHashMap<>();
+            shardRouter.getShards().forEach(shard -> users.put(shard, 0L));
+            long placed = 0;
+            for (UserPlacementRepository.ShardUsers shard : placementRepository.countUsersByShard()) {
+                users.merge(shard.getShard(), shard.getUsers(), Long::sum);
+                placed += shard.getUsers();
+            }
+            users.merge(MAIN, userRepository.count() - placed, Long::sum);
+            return users;
+        });
+    }
+
+    public Migration migrate(Long userId, String target) {
+        if (!shardRouter.isEnabled()) {
+            throw new RuntimeException("Sharding is not enabled");
+        }
+        if (!shardRouter.getShards().contains(target)) {
+            throw new RuntimeException("Unknown shard: " + target);
+        }
+        String source = startMigration(userId);
+        if (source.equals(target)) {
+            shardRouter.onShard(MAIN, () -> placementRepository.finishMigration(userId, source));
+            return new Migration(userId, source, target, 0, 0);
+        }
+
+        Migration migration;
+        try {
+            migration = copy(userId, source, target);
+        } catch (RuntimeException e) {
+            discard(userId, target);
+            shardRouter.onShard(MAIN, () -> placementRepository.finishMigration(userId, source));
+            throw e;
+        }
+        shardRouter.onShard(MAIN, () -> placementRepository.finishMigration(userId, target));
+        discard(userId, source);
+        log.info("Moved user {} from shard {} to {}: {} payees, {} notes", userId, source, target,
+                migration.payees(), migration.notes());
+        return migration;
+    }
+
+    // Moves every user whose placement differs from the ring, e.g. after a shard was added
+    public Rebalance rebalance() {
+        int moved = 0;
+        int failed = 0;
+        long afterId = 0;
+        List<Long> userIds;
+        do {
+            long from = afterId;
+            userIds = shardRouter.onShard(MAIN, () -> userRepository.findIdsAfter(from, PageRequest.of(0, batchSize)));
+            for (Long userId : userIds) {
+                afterId = userId;
+                String target = shardRouter.ringShardOf(userId);
+                if (target.equals(shardRouter.shardOf(userId))) {
+                    continue;
+                }
+                try {
+                    migrate(userId, target);
+                    moved++;
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.warn("Could not move user {} to shard {}", userId, target, e);
+                }
+            }
+        } while (userIds.size() == batchSize);
+        return new Rebalance(moved, failed);
+    }
+
+    // Freezes the user's writes and returns the current shard. Taking the user's row exclusively
+    // waits for the writes in flight; later ones see the flag once this commits.
+    private String startMigration(Long userId) {
+        return shardRouter.onShard(MAIN, () -> {
+            if (userRepository.lockForMigration(userId).isEmpty()) {
+                throw new RuntimeException("User not found with id: " + userId);
+            }
+            UserPlacementEntity placement = placementRepository.findById(userId).orElse(null);
+            if (placement == null) {
+                try {
+                    placement = placementRepository.saveAndFlush(new UserPlacementEntity(userId, MAIN));
+                } catch (DataIntegrityViolationException e) {
+                    throw new RuntimeException("User " + userId + " is already being migrated");
+                }
+            }
+            if (placementRepository.startMigration(userId) == 0) {
+                throw new RuntimeException("User " + userId + " is already being migrated");
+            }
+            return placement.getShard();
+        });
+    }
+
+    private Migration copy(Long userId, String source, String target) {
+        if (!MAIN.equals(target)) {
+            shardRouter.onShard(target, () -> shardRouter.insertUserStandIn(userId));
+        }
+
+        List<PayeeRow> payees = shardRouter.onShard(source, () -> jdbcTemplate.query(
+                "SELECT payee_id, address, note_count, total_amount FROM payees WHERE user_id = ?",
+                (rs, row) -> new PayeeRow(rs.getLong("payee_id"), rs.getString("address"),
+                        rs.getLong("note_count"), rs.getBigDecimal("total_amount")),
+                userId));
+        Map<Long, Long> payeeIds = shardRouter.onShard(target, () -> {
+            Map<Long, Long> ids = new HashMap<>();
+            for (PayeeRow payee : payees) {
+                KeyHolder key = new GeneratedKeyHolder();
+                jdbcTemplate.update(con -> {
+                    PreparedStatement ps = con.prepareStatement("INSERT INTO payees "
+                            + "(user_id, address, note_count, total_amount) VALUES (?, ?, ?, ?)",
+                            new String[] {"payee_id"});
+                    ps.setLong(1, userId);
+                    ps.setString(2, payee.address());
+                    ps.setLong(3, payee.noteCount());
+                    ps.setBigDecimal(4, payee.totalAmount());
+                    return ps;
+                }, key);
+                ids.put(payee.payeeId(), key.getKey().longValue());
+            }
+            return ids;
+        });
+
+        long notes = 0;
+        long afterId = 0;
+        List<NoteRow> batch;
+        do {
+            long from = afterId;
+            batch = shardRouter.onShard(source, () -> jdbcTemplate.query(
+                    "SELECT notes_id, title, body, payee_id, payee_amount, created_at FROM notes "
+                            + "WHERE user_id = ? AND notes_id > ? ORDER BY notes_id LIMIT ?",
+                    (rs, row) -> new NoteRow(rs.getLong("notes_id"), rs.getString("title"), rs.getBytes("body"),
+                            rs.getObject("payee_id", Long.class), rs.getBigDecimal("payee_amount"),
+                            rs.getTimestamp("created_at")),
+                    userId, from, batchSize));
+            List<NoteRow> rows = batch;
+            shardRouter.onShard(target, () -> jdbcTemplate.batchUpdate("INSERT INTO notes "
+                    + "(notes_id, user_id, title, body, payee_id, payee_amount, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    rows, rows.size(), (ps, note) -> {
+                        ps.setLong(1, note.notesId());
+                        ps.setLong(2, userId);
+                        ps.setString(3, note.title());
+                        ps.setBytes(4, note.body());
+                        ps.setObject(5, note.payeeId() == null ? null : payeeIds.get(note.payeeId()));
+                        ps.setBigDecimal(6, note.payeeAmount());
+                        ps.setTimestamp(7, note.createdAt());
+                    }));
+            notes += rows.size();
+            if (!rows.isEmpty()) {
+                afterId = rows.get(rows.size() - 1).notesId();
+            }
+        } while (batch.size() == batchSize);
+
+        return new Migration(userId, source, target, payees.size(), notes);
+    }
+
+    // Removes the user's notes and payees from a shard that no longer (or never did) own them
+    private void discard(Long userId, String shard) {
+        int deleted;
+        do {
+            deleted = shardRouter.onShard(shard, () -> {
+                List<Long> ids = noteRepository.findIdsByUser(userId, PageRequest.of(0, batchSize));
+                return ids.isEmpty() ? 0 : noteRepository.deleteByIds(ids, userId);
+            });
+        } while (deleted == batchSize);
+        shardRouter.onShard(shard, () -> {
+            payeeService.deletePayeesByUser(userId);
+            return MAIN.equals(shard) ? 0 : shardRouter.deleteUserStandIn(userId);
+        });
+    }
+
+    public record Migration(Long userId, String from, String to, int payees, long notes) {
+    }
+
+    public record Rebalance(int moved, int failed) {
+    }
+
+    private record PayeeRow(long payeeId, String address, long noteCount, BigDecimal totalAmount) {
+    }
+
+    private record NoteRow(long notesId, String title, byte[] body, Long payeeId, BigDecimal payeeAmount,
+            Timestamp createdAt) {
+    }
+}
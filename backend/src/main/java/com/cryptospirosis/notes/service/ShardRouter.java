@@ -0,0 +1,235 @@
+package com.cryptospirosis.notes.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cryptospirosis.notes.config.ShardRoutingDataSource;
+import com.cryptospirosis.notes.config.ShardingProperties;
+import com.cryptospirosis.notes.entity.UserEntity;
+import com.cryptospirosis.notes.entity.UserPlacementEntity;
+import com.cryptospirosis.notes.repository.NoteRepository;
+import com.cryptospirosis.notes.repository.UserPlacementRepository;
+import com.cryptospirosis.notes.repository.UserPlacementRepository.PlacementState;
+import com.cryptospirosis.notes.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Runs user-scoped work in a transaction on the shard that holds the user's notes. Users, their
+ * placements and everything not tied to one user stay on the main shard, which is what any code
+ * outside a routed block talks to. With sharding disabled every call simply runs on main.
+ */
+@Service
+public class ShardRouter {
+
+    private static final String MAIN = ShardRoutingDataSource.MAIN_SHARD;
+
+    private final boolean enabled;
+    private final List<String> shards;
+    private final ConsistentHashRing ring;
+    private final UserPlacementRepository placementRepository;
+    private final NoteRepository noteRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate newTransaction;
+    private final TransactionTemplate newReadOnlyTransaction;
+
+    public ShardRouter(ShardingProperties properties, ObjectProvider<ShardRoutingDataSource> routingDataSource,
+            UserPlacementRepository placementRepository, NoteRepository noteRepository, UserRepository userRepository,
+            JdbcTemplate jdbcTemplate,
+            EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager) {
+        ShardRoutingDataSource routing = routingDataSource.getIfAvailable();
+        if (properties.isEnabled() && routing == null) {
+            // An AOT-processed build (-Pfast-startup) settles ShardingConfig's conditions when it is
+            // built; running every user on main instead would hide the notes already on other shards
+            throw new IllegalStateException("notes.sharding.enabled is set, but this build was processed ahead of "
+                    + "time without sharding. Rebuild with sharding enabled or run the regular jar.");
+        }
+        this.enabled = routing != null;
+        this.shards = enabled ? routing.getShardNames() : List.of(MAIN);
+        this.ring = new ConsistentHashRing(shards, properties.getVirtualNodes());
+        this.placementRepository = placementRepository;
+        this.noteRepository = noteRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.newReadOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.newReadOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.newReadOnlyTransaction.setReadOnly(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<String> getShards() {
+        return shards;
+    }
+
+    // Where the user's notes are now; main for users placed before sharding was enabled
+    public String shardOf(Long userId) {
+        return placement(userId).map(UserPlacementEntity::getShard).orElse(MAIN);
+    }
+
+    // Where the ring wants the user; differs from shardOf for some users after a shard is added
+    public String ringShardOf(Long userId) {
+        return ring.shardFor(userId);
+    }
+
+    // Users grouped by the shard holding their notes, with one placement query for the whole batch
+    public Map<String, List<Long>> groupByShard(Collection<Long> userIds) {
+        if (!enabled) {
+            return Map.of(MAIN, List.copyOf(userIds));
+        }
+        Map<Long, String> placed = new HashMap<>();
+        onShard(MAIN, true, () -> placementRepository.findAllById(userIds))
+                .forEach(placement -> placed.put(placement.getUserId(), placement.getShard()));
+        return userIds.stream().collect(Collectors.groupingBy(userId -> placed.getOrDefault(userId, MAIN)));
+    }
+
+    // Notes keep their id when their user moves, so the owner's placement decides, not the id
+    public String shardOfNote(Long noteId) {
+        return ownerOfNote(noteId).map(this::shardOf).orElse(MAIN);
+    }
+
+    public <T> T onShard(String shard, Supplier<T> work) {
+        return onShard(shard, false, work);
+    }
+
+    public <T> T onShardReadOnly(String shard, Supplier<T> work) {
+        return onShard(shard, true, work);
+    }
+
+    public <T> T onUserShard(Long userId, Supplier<T> work) {
+        return onShard(shardOf(userId), true, work);
+    }
+
+    // Refused while the user is being migrated. The user's row on main stays locked (shared) until
+    // the write has committed on its shard, so a migration cannot start copying under it.
+    public <T> T onUserShardForWrite(Long userId, Supplier<T> work) {
+        if (!enabled) {
+            return onShard(MAIN, false, work);
+        }
+        return onShard(MAIN, false, () -> {
+            if (userRepository.lockForNoteWrite(userId).isEmpty()) {
+                return work.get();
+            }
+            Optional<PlacementState> placement = placementRepository.findStateByUserId(userId);
+            if (placement.filter(PlacementState::isMigrating).isPresent()) {
+                throw new RuntimeException("Notes of user " + userId + " are being moved to another shard, retry shortly");
+            }
+            return onShard(placement.map(PlacementState::getShard).orElse(MAIN), false, work);
+        });
+    }
+
+    public <T> T onNoteShard(Long noteId, Supplier<T> work) {
+        return onShard(shardOfNote(noteId), true, work);
+    }
+
+    public <T> T onNoteShardForWrite(Long noteId, Supplier<T> work) {
+        if (!enabled) {
+            return onShard(MAIN, false, work);
+        }
+        Optional<Long> owner = ownerOfNote(noteId);
+        return owner.isPresent() ? onUserShardForWrite(owner.get(), work) : onShard(MAIN, false, work);
+    }
+
+    // Primary key lookups on each shard until one has the note; while a user is being moved
+    // both copies name the same owner
+    private Optional<Long> ownerOfNote(Long noteId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        for (String shard : shards) {
+            Optional<Long> owner = onShard(shard, true, () -> noteRepository.findOwnerId(noteId));
+            if (owner.isPresent()) {
+                return owner;
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Puts a new user on its ring shard. Off main, the shard gets a stand-in user row for its foreign keys.
+    public void place(UserEntity user) {
+        if (!enabled) {
+            return;
+        }
+        String shard = ringShardOf(user.getUserId());
+        if (!MAIN.equals(shard)) {
+            onShard(shard, () -> insertUserStandIn(user.getUserId()));
+        }
+        onShard(MAIN, () -> placementRepository.save(new UserPlacementEntity(user.getUserId(), shard)));
+    }
+
+    // Drops the placement and the stand-in row; the user's notes and payees must be gone already
+    public void unplace(Long userId) {
+        placement(userId).ifPresent(placement -> {
+            if (!MAIN.equals(placement.getShard())) {
+                onShard(placement.getShard(), () -> deleteUserStandIn(userId));
+            }
+            onShard(MAIN, () -> {
+                placementRepository.deleteById(userId);
+                return null;
+            });
+        });
+    }
+
+    // Stand-ins only anchor foreign keys; the real username and email stay on main
+    int insertUserStandIn(Long userId) {
+        return jdbcTemplate.update("INSERT INTO users (user_id, username, email, password) VALUES (?, ?, ?, ?)",
+                userId, "#" + userId, "#" + userId, "");
+    }
+
+    int deleteUserStandIn(Long userId) {
+        return jdbcTemplate.update("DELETE FROM users WHERE user_id = ?", userId);
+    }
+
+    private Optional<UserPlacementEntity> placement(Long userId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return onShard(MAIN, true, () -> placementRepository.findById(userId));
+    }
+
+    private <T> T onShard(String shard, boolean readOnly, Supplier<T> work) {
+        String current = ShardRoutingDataSource.currentShard();
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (shard.equals(current)) {
+            return inTransaction ? work.get() : (readOnly ? readOnlyTransaction : transaction).execute(status -> work.get());
+        }
+
+        // A different shard needs its own connection: suspend the running transaction, or set aside
+        // the request's open-in-view EntityManager, which may already hold one for the current shard
+        Object inView = inTransaction ? null : TransactionSynchronizationManager.unbindResourceIfPossible(entityManagerFactory);
+        ShardRoutingDataSource.bind(shard);
+        try {
+            return (readOnly ? newReadOnlyTransaction : newTransaction).execute(status -> work.get());
+        } finally {
+            ShardRoutingDataSource.bind(current);
+            if (inView != null) {
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, inView);
+            }
+        }
+    }
+}
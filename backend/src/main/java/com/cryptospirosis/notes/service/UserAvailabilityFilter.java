@@ -0,0 +1,243 @@
+package com.cryptospirosis.notes.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cryptospirosis.notes.repository.UserRepository;
+import com.cryptospirosis.notes.repository.UserRepository.UserIdentity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory Bloom filters of normalized usernames and emails. A negative answer means the
+ * value is certainly unused, so availability probes only reach the database on a "maybe".
+ *
+ * Values are recorded before and after each insert so that neither a concurrent probe nor a
+ * concurrent rebuild can miss a committed user. Renames and deletes cannot be removed from a
+ * Bloom filter; they only raise the false-positive rate until the next rebuild.
+ */
+@Component
+public class UserAvailabilityFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAvailabilityFilter.class);
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // Lowercase letters utf8mb4_0900_ai_ci sorts with another letter or pair, but NFKD leaves alone
+    private static final Map<Integer, String> BASE_LETTERS = Map.of(
+            (int) '\u00df', "ss", // ß
+            (int) '\u00e6', "ae", // æ
+            (int) '\u0153', "oe", // œ
+            (int) '\u00f8', "o",  // ø
+            (int) '\u0142', "l",  // ł
+            (int) '\u0111', "d",  // đ
+            (int) '\u00f0', "d",  // ð
+            (int) '\u0127', "h",  // ħ
+            (int) '\u0167', "t"); // ŧ
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final double falsePositiveRate;
+    private final long minimumCapacity;
+
+    private volatile Filters current;
+    private volatile Filters rebuilding;
+    private final AtomicLong staleEntries = new AtomicLong();
+
+    private final CheckCounters usernameChecks;
+    private final CheckCounters emailChecks;
+
+    public UserAvailabilityFilter(UserRepository userRepository, PlatformTransactionManager transactionManager,
+            MeterRegistry registry,
+            @Value("${users.availability-filter.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${users.availability-filter.minimum-capacity:10000}") long minimumCapacity) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.falsePositiveRate = falsePositiveRate;
+        this.minimumCapacity = minimumCapacity;
+        this.usernameChecks = new CheckCounters(registry, "username");
+        this.emailChecks = new CheckCounters(registry, "email");
+
+        Gauge.builder("users.availability.filter.bytes", this, f -> f.current == null ? 0 : f.current.sizeInBytes())
+                .description("Memory held by the username and email Bloom filters")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("users.availability.filter.expected.fpp", this,
+                        f -> f.current == null ? 1.0 : f.current.expectedFalsePositiveRate())
+                .description("Expected false-positive probability at the current fill")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Probes keep going to the database until the scheduled check succeeds
+            log.warn("Could not build user availability filter", e);
+        }
+    }
+
+    // Resize and drop renamed/deleted entries once the filter has drifted from the table
+    @Scheduled(initialDelayString = "${users.availability-filter.check-interval:PT1H}",
+            fixedDelayString = "${users.availability-filter.check-interval:PT1H}")
+    public void rebuildIfStale() {
+        Filters filters = current;
+        if (filters == null || (staleEntries.get() > filters.capacity / 10
+                || userRepository.count() > filters.capacity)) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        long capacity = Math.max(minimumCapacity, userRepository.count() * 2);
+        Filters next = new Filters(capacity, falsePositiveRate);
+        staleEntries.set(0);
+        rebuilding = next;
+        try {
+            AtomicLong users = new AtomicLong();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<UserIdentity> identities = userRepository.streamAllIdentities()) {
+                    identities.forEach(identity -> {
+                        next.add(identity.getUsername(), identity.getEmail());
+                        users.incrementAndGet();
+                    });
+                }
+            });
+            current = next;
+            log.info("Built user availability filter: {} users, {} bytes", users, next.sizeInBytes());
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    // Reads rebuilding before current, so a rebuild finishing in between cannot drop the value
+    public void record(String username, String email) {
+        Filters next = rebuilding;
+        if (next != null) {
+            next.add(username, email);
+        }
+        Filters filters = current;
+        if (filters != null && filters != next) {
+            filters.add(username, email);
+        }
+    }
+
+    // Renamed or deleted users linger in the filter until the next rebuild
+    public void markStale() {
+        staleEntries.incrementAndGet();
+    }
+
+    public boolean usernameExists(String username, Predicate<String> database) {
+        Filters filters = current;
+        return exists(username, filters == null ? null : filters.usernames, database, usernameChecks);
+    }
+
+    public boolean emailExists(String email, Predicate<String> database) {
+        Filters filters = current;
+        return exists(email, filters == null ? null : filters.emails, database, emailChecks);
+    }
+
+    private static boolean exists(String value, BloomFilter filter, Predicate<String> database,
+            CheckCounters checks) {
+        if (value == null) {
+            return false;
+        }
+        if (filter != null && !filter.mightContain(normalize(value))) {
+            checks.negative.increment();
+            return false;
+        }
+        boolean exists = database.test(value);
+        if (filter != null) {
+            (exists ? checks.positive : checks.falsePositive).increment();
+        }
+        return exists;
+    }
+
+    // Folds what MySQL's utf8mb4_0900_ai_ci ignores: case and accents ("José" = "jose"), compatibility
+    // forms ("ﬁ" = "fi") and the letters that have no Unicode decomposition but share their base letter's
+    // primary weight in the UCA ("ø" = "o", "æ" = "ae"). Values the database treats as equal must hash
+    // alike, or a miss here would not be a real miss; folding more than the database only costs a probe.
+    static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFKD);
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        StringBuilder key = new StringBuilder(folded.length());
+        folded.codePoints().forEach(c -> {
+            String base = BASE_LETTERS.get(c);
+            if (base != null) {
+                key.append(base);
+            } else {
+                key.appendCodePoint(c);
+            }
+        });
+        return key.toString();
+    }
+
+    private static final class Filters {
+        private final long capacity;
+        private final BloomFilter usernames;
+        private final BloomFilter emails;
+
+        private Filters(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.usernames = new BloomFilter(capacity, falsePositiveRate);
+            this.emails = new BloomFilter(capacity, falsePositiveRate);
+        }
+
+        private void add(String username, String email) {
+            if (username != null) {
+                usernames.add(normalize(username));
+            }
+            if (email != null) {
+                emails.add(normalize(email));
+            }
+        }
+
+        private long sizeInBytes() {
+            return usernames.sizeInBytes() + emails.sizeInBytes();
+        }
+
+        private double expectedFalsePositiveRate() {
+            return Math.max(usernames.expectedFalsePositiveRate(), emails.expectedFalsePositiveRate());
+        }
+    }
+
+    // Observed false-positive rate = false_positive / (false_positive + negative)
+    private static final class CheckCounters {
+        private final Counter negative;
+        private final Counter positive;
+        private final Counter falsePositive;
+
+        private CheckCounters(MeterRegistry registry, String kind) {
+            this.negative = counter(registry, kind, "negative");
+            this.positive = counter(registry, kind, "positive");
+            this.falsePositive = counter(registry, kind, "false_positive");
+        }
+
+        private static Counter counter(MeterRegistry registry, String kind, String outcome) {
+            return Counter.builder("users.availability.checks")
+                    .description("Username/email availability probes by Bloom filter outcome")
+                    .tag("kind", kind)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.cryptospirosis.notes.service;
+
+// The only service failure controllers turn into 404; anything else is a server error
+public class UserNotFoundException extends RuntimeException {
+
+    public UserNotFoundException(String message) {
+        super(message);
+    }
+}
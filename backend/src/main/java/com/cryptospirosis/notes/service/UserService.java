@@ -2,32 +2,89 @@ package com.cryptospirosis.notes.service;
 
 import com.cryptospirosis.notes.entity.UserEntity;
 import com.cryptospirosis.notes.repository.UserRepository;
+import com.cryptospirosis.notes.repository.UserRepository.UserSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private UserAvailabilityFilter availabilityFilter;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private PayeeService payeeService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("cleanupExecutor")
+    private Executor cleanupExecutor;
     
     // Create a new user
     public UserEntity createUser(UserEntity user) {
-        if (userRepository.existsByUsername(user.getUsername())) {
+        if (existsByUsername(user.getUsername())) {
             throw new RuntimeException("Username already exists");
         }
-        if (userRepository.existsByEmail(user.getEmail())) {
+        if (existsByEmail(user.getEmail())) {
             throw new RuntimeException("Email already exists");
         }
-        return userRepository.save(user);
+        // Recorded before the insert so no probe sees a committed user as free,
+        // and again after it so a concurrent filter rebuild cannot miss it
+        availabilityFilter.record(user.getUsername(), user.getEmail());
+        UserEntity savedUser = userRepository.save(user);
+        availabilityFilter.record(savedUser.getUsername(), savedUser.getEmail());
+        shardRouter.place(savedUser);
+        return savedUser;
     }
     
-    // Get all users
-    public List<UserEntity> getAllUsers() {
-        return userRepository.findAll();
+    // Feed one keyset page of the user directory to the consumer, row by row. With a prefix the
+    // page is ordered by the searched column and after is its last value; otherwise by id.
+    public void forEachUser(UserSearch search, String prefix, String after, int limit, Consumer<UserSummary> consumer) {
+        Pageable page = PageRequest.of(0, limit);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<UserSummary> users = switch (search) {
+                case USERNAME -> userRepository.streamSummariesByUsernamePrefix(likePrefix(prefix),
+                        after == null ? "" : after, page);
+                case EMAIL -> userRepository.streamSummariesByEmailPrefix(likePrefix(prefix),
+                        after == null ? "" : after, page);
+                case NONE -> userRepository.streamSummariesAfter(after == null ? 0L : Long.parseLong(after), page);
+            }) {
+                users.forEach(consumer);
+            }
+        });
+    }
+
+    public enum UserSearch {
+        NONE, USERNAME, EMAIL
+    }
+
+    // Wildcards in the prefix match literally ('!' is the escape character in the queries)
+    private static String likePrefix(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
     }
     
     // Get user by ID
@@ -40,9 +97,14 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
     
-    // Get user by email
-    public Optional<UserEntity> getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+    // Get user summary by username
+    public Optional<UserSummary> getUserSummaryByUsername(String username) {
+        return userRepository.findSummaryByUsername(username);
+    }
+    
+    // Get user summary by email
+    public Optional<UserSummary> getUserSummaryByEmail(String email) {
+        return userRepository.findSummaryByEmail(email);
     }
     
     // Update user
@@ -53,42 +115,98 @@ public class UserService {
             
             // Check if username is being changed and if it already exists
             if (!user.getUsername().equals(updatedUser.getUsername()) && 
-                userRepository.existsByUsername(updatedUser.getUsername())) {
+                existsByUsername(updatedUser.getUsername())) {
                 throw new RuntimeException("Username already exists");
             }
             
             // Check if email is being changed and if it already exists
             if (!user.getEmail().equals(updatedUser.getEmail()) && 
-                userRepository.existsByEmail(updatedUser.getEmail())) {
+                existsByEmail(updatedUser.getEmail())) {
                 throw new RuntimeException("Email already exists");
             }
             
+            boolean renamed = !user.getUsername().equals(updatedUser.getUsername())
+                    || !user.getEmail().equals(updatedUser.getEmail());
+
             user.setUsername(updatedUser.getUsername());
             user.setEmail(updatedUser.getEmail());
             user.setPassword(updatedUser.getPassword());
             
-            return userRepository.save(user);
+            availabilityFilter.record(user.getUsername(), user.getEmail());
+            UserEntity savedUser = userRepository.save(user);
+            availabilityFilter.record(savedUser.getUsername(), savedUser.getEmail());
+            if (renamed) {
+                availabilityFilter.markStale();
+            }
+            return savedUser;
         } else {
             throw new RuntimeException("User not found with id: " + userId);
         }
     }
     
-    // Delete user
-    public void deleteUser(Long userId) {
-        if (userRepository.existsById(userId)) {
-            userRepository.deleteById(userId);
-        } else {
-            throw new RuntimeException("User not found with id: " + userId);
+    // Delete user. Small accounts are removed inline; when the first chunk of notes is full,
+    // the remaining notes and the user row are purged in the background.
+    public UserDeletion deleteUser(Long userId) {
+        int notesDeleted = noteService.purgeNotesChunk(userId);
+        if (notesDeleted == noteService.getDeleteChunkSize()) {
+            cleanupExecutor.execute(() -> {
+                try {
+                    finishDeletion(userId);
+                } catch (RuntimeException e) {
+                    log.error("Background deletion of user {} failed", userId, e);
+                }
+            });
+            return new UserDeletion(notesDeleted, 0, false);
         }
+
+        UserDeletion deletion = finishDeletion(userId);
+        if (deletion.usersDeleted() == 0) {
+            throw new UserNotFoundException("User not found with id: " + userId);
+        }
+        return new UserDeletion(notesDeleted + deletion.notesDeleted(), deletion.usersDeleted(), true);
+    }
+
+    // Purge remaining notes chunk by chunk, then drop payees on the user's shard and the user on main
+    private UserDeletion finishDeletion(Long userId) {
+        long notesDeleted = 0;
+        int chunk;
+        do {
+            chunk = noteService.purgeNotesChunk(userId);
+            notesDeleted += chunk;
+        } while (chunk == noteService.getDeleteChunkSize());
+
+        long lateNotes = shardRouter.onUserShardForWrite(userId, () -> {
+            // Catch notes created while the purge was running, however many there are, or the user
+            // row below would still be referenced
+            long late = 0;
+            int lateChunk;
+            do {
+                lateChunk = noteService.purgeNotesChunk(userId);
+                late += lateChunk;
+            } while (lateChunk == noteService.getDeleteChunkSize());
+            payeeService.deletePayeesByUser(userId);
+            return late;
+        });
+        shardRouter.unplace(userId);
+        UserDeletion deletion = new UserDeletion(notesDeleted + lateNotes,
+                transactionTemplate.execute(status -> userRepository.deleteByUserId(userId)), true);
+        if (deletion.usersDeleted() > 0) {
+            availabilityFilter.markStale();
+        }
+        return deletion;
+    }
+
+    // Affected rows of a user deletion; completed is false while the purge runs in the background
+    public record UserDeletion(long notesDeleted, int usersDeleted, boolean completed) {
     }
     
     // Check if user exists by username
     public boolean existsByUsername(String username) {
-        return userRepository.existsByUsername(username);
+        return availabilityFilter.usernameExists(username, userRepository::existsByUsername);
     }
     
     // Check if user exists by email
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return availabilityFilter.emailExists(email, userRepository::existsByEmail);
     }
 }
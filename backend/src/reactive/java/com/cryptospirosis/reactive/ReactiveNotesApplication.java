@@ -0,0 +1,34 @@
+package com.cryptospirosis.reactive;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.graphql.GraphQlAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import com.cryptospirosis.notes.security.JwtUtil;
+import com.cryptospirosis.notes.service.NoteBodyCodec;
+
+// WebFlux + R2DBC variant of the notes API, built with -Preactive; configured by reactive.properties.
+// GraphQL stays with the MVC app, whose resolvers are JPA based.
+@SpringBootApplication(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+		GraphQlAutoConfiguration.class})
+@Import({JwtUtil.class, NoteBodyCodec.class})
+public class ReactiveNotesApplication {
+
+	public static void main(String[] args) {
+		new SpringApplicationBuilder(ReactiveNotesApplication.class)
+				.properties("spring.config.name=reactive")
+				.run(args);
+	}
+
+	// Tomcat is on the classpath through the MVC app and would otherwise be picked first
+	@Bean
+	public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.cryptospirosis.reactive.controller;
+
+import com.cryptospirosis.notes.entity.NoteEntity;
+import com.cryptospirosis.reactive.service.ReactiveNoteService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+// Same routes and payloads as NoteController
+@RestController
+@RequestMapping("/api/notes")
+public class ReactiveNoteController {
+
+    private final ReactiveNoteService noteService;
+
+    public ReactiveNoteController(ReactiveNoteService noteService) {
+        this.noteService = noteService;
+    }
+
+    // Get all notes for a user
+    @GetMapping("/user/{userId}")
+    public Flux<NoteEntity> getNotesByUser(@PathVariable Long userId) {
+        return noteService.getNotesByUser(userId);
+    }
+
+    @PostMapping("/user/{userId}")
+    public Mono<NoteEntity> createNote(@PathVariable Long userId, @RequestBody NoteEntity note) {
+        return noteService.createNote(userId, note);
+    }
+
+    // Get note by ID
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<NoteEntity>> getNoteById(@PathVariable Long id) {
+        return noteService.getNoteById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // Update note
+    @PutMapping("/{id}")
+    public Mono<NoteEntity> updateNote(@PathVariable Long id, @RequestBody NoteEntity note) {
+        return noteService.updateNote(id, note);
+    }
+
+    // Delete note
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Map<String, Integer>>> deleteNote(@PathVariable Long id) {
+        return noteService.deleteNote(id).map(this::deletedResponse);
+    }
+
+    // Delete a note only if it belongs to the user
+    @DeleteMapping("/user/{userId}/{id}")
+    public Mono<ResponseEntity<Map<String, Integer>>> deleteUserNote(@PathVariable Long userId, @PathVariable Long id) {
+        return noteService.deleteNote(userId, id).map(this::deletedResponse);
+    }
+
+    // Delete several of a user's notes; the body is the list of note ids
+    @DeleteMapping("/user/{userId}")
+    public Mono<Map<String, Integer>> deleteUserNotes(@PathVariable Long userId, @RequestBody List<Long> ids) {
+        return noteService.deleteNotes(userId, ids).map(deleted -> Map.of("deleted", deleted));
+    }
+
+    private ResponseEntity<Map<String, Integer>> deletedResponse(int deleted) {
+        if (deleted == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("deleted", deleted));
+    }
+}
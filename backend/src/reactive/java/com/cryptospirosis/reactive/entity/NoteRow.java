@@ -0,0 +1,78 @@
+package com.cryptospirosis.reactive.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+// Row of the notes table written by the MVC app; body holds NoteBodyCodec bytes
+@Table("notes")
+public class NoteRow {
+
+    @Id
+    private Long notesId;
+    private String title;
+    private byte[] body;
+    private Long payeeId;
+    private BigDecimal payeeAmount;
+    private LocalDateTime createdAt;
+    private Long userId;
+
+    // Getters & Setters
+    public Long getNotesId() {
+        return notesId;
+    }
+
+    public void setNotesId(Long notesId) {
+        this.notesId = notesId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    public Long getPayeeId() {
+        return payeeId;
+    }
+
+    public void setPayeeId(Long payeeId) {
+        this.payeeId = payeeId;
+    }
+
+    public BigDecimal getPayeeAmount() {
+        return payeeAmount;
+    }
+
+    public void setPayeeAmount(BigDecimal payeeAmount) {
+        this.payeeAmount = payeeAmount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+}
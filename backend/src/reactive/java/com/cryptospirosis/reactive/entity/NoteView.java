@@ -0,0 +1,9 @@
+package com.cryptospirosis.reactive.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// A note joined with its payee address, as read for API responses
+public record NoteView(Long notesId, String title, byte[] body, String payeeAddress,
+        BigDecimal payeeAmount, LocalDateTime createdAt, Long userId, Long payeeId) {
+}
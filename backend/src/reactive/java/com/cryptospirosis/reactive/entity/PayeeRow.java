@@ -0,0 +1,10 @@
+package com.cryptospirosis.reactive.entity;
+
+import java.math.BigDecimal;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Table("payees")
+public record PayeeRow(@Id Long payeeId, Long userId, String address, long noteCount, BigDecimal totalAmount) {
+}
@@ -0,0 +1,8 @@
+package com.cryptospirosis.reactive.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Table("users")
+public record UserRow(@Id Long userId, String username, String email, String password) {
+}
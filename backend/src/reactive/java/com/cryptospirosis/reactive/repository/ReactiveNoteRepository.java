@@ -0,0 +1,31 @@
+package com.cryptospirosis.reactive.repository;
+
+import com.cryptospirosis.reactive.entity.NoteRow;
+import com.cryptospirosis.reactive.entity.NoteView;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveNoteRepository extends ReactiveCrudRepository<NoteRow, Long> {
+
+    String VIEW = "SELECT n.notes_id, n.title, n.body, p.address AS payee_address, n.payee_amount, "
+            + "n.created_at, n.user_id, n.payee_id FROM notes n LEFT JOIN payees p ON p.payee_id = n.payee_id ";
+
+    @Query(VIEW + "WHERE n.user_id = :userId")
+    Flux<NoteView> findViewsByUserId(Long userId);
+
+    @Query(VIEW + "WHERE n.notes_id = :id")
+    Mono<NoteView> findViewById(Long id);
+
+    @Modifying
+    @Query("DELETE FROM notes WHERE notes_id IN (:ids)")
+    Mono<Integer> deleteByIds(Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM notes WHERE notes_id IN (:ids) AND user_id = :userId")
+    Mono<Integer> deleteByIdsAndUserId(Collection<Long> ids, Long userId);
+}
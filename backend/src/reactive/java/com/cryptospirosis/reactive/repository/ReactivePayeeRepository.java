@@ -0,0 +1,49 @@
+package com.cryptospirosis.reactive.repository;
+
+import com.cryptospirosis.reactive.entity.PayeeRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+// Mirrors PayeeRepository so both stacks keep the address book totals identical
+public interface ReactivePayeeRepository extends ReactiveCrudRepository<PayeeRow, Long> {
+
+    Mono<PayeeRow> findByUserIdAndAddress(Long userId, String address);
+
+    // A concurrent insert of the same address waits on the unique key, then fails with a duplicate key
+    @Modifying
+    @Query("INSERT INTO payees (user_id, address, note_count, total_amount) VALUES (:userId, :address, 0, 0)")
+    Mono<Integer> insert(Long userId, String address);
+
+    // Locking read: returns the latest committed row, not the transaction's snapshot. FOR UPDATE because
+    // H2 has no FOR SHARE; the row's totals are updated right after anyway.
+    @Query("SELECT * FROM payees WHERE user_id = :userId AND address = :address FOR UPDATE")
+    Mono<PayeeRow> lockByUserIdAndAddress(Long userId, String address);
+
+    @Modifying
+    @Query("UPDATE payees SET note_count = note_count + :notes, total_amount = total_amount + :amount "
+            + "WHERE payee_id = :payeeId")
+    Mono<Integer> adjustTotals(Long payeeId, long notes, BigDecimal amount);
+
+    @Modifying
+    @Query("UPDATE payees p SET "
+            + "note_count = note_count - (SELECT COUNT(*) FROM notes n WHERE n.payee_id = p.payee_id "
+            + "AND n.notes_id IN (:ids)), "
+            + "total_amount = total_amount - (SELECT COALESCE(SUM(n.payee_amount), 0) FROM notes n "
+            + "WHERE n.payee_id = p.payee_id AND n.notes_id IN (:ids)) "
+            + "WHERE p.payee_id IN (SELECT n.payee_id FROM notes n WHERE n.notes_id IN (:ids))")
+    Mono<Integer> releaseNotes(Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE payees p SET "
+            + "note_count = note_count - (SELECT COUNT(*) FROM notes n WHERE n.payee_id = p.payee_id "
+            + "AND n.notes_id IN (:ids) AND n.user_id = :userId), "
+            + "total_amount = total_amount - (SELECT COALESCE(SUM(n.payee_amount), 0) FROM notes n "
+            + "WHERE n.payee_id = p.payee_id AND n.notes_id IN (:ids) AND n.user_id = :userId) "
+            + "WHERE p.payee_id IN (SELECT n.payee_id FROM notes n WHERE n.notes_id IN (:ids) AND n.user_id = :userId)")
+    Mono<Integer> releaseNotesOfUser(Collection<Long> ids, Long userId);
+}
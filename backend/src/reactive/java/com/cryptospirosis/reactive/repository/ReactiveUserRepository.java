@@ -0,0 +1,10 @@
+package com.cryptospirosis.reactive.repository;
+
+import com.cryptospirosis.reactive.entity.UserRow;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserRepository extends ReactiveCrudRepository<UserRow, Long> {
+
+    Mono<UserRow> findByEmail(String email);
+}
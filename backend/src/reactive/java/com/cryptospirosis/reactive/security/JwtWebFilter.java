@@ -0,0 +1,69 @@
+package com.cryptospirosis.reactive.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.function.Function;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.cryptospirosis.notes.security.JwtUtil;
+import com.cryptospirosis.reactive.repository.ReactiveUserRepository;
+
+import io.jsonwebtoken.JwtException;
+import reactor.core.publisher.Mono;
+
+// Non-blocking equivalent of JwtFilter: same public paths, same 401 responses
+public class JwtWebFilter implements WebFilter {
+    private final JwtUtil jwtUtil;
+    private final ReactiveUserRepository userRepository;
+
+    public JwtWebFilter(JwtUtil jwtUtil, ReactiveUserRepository userRepository) {
+        this.jwtUtil = jwtUtil;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().value();
+
+        // Skip JWT validation for public endpoints
+        if (path.startsWith("/api/auth") || path.startsWith("/notes")) {
+            return chain.filter(exchange);
+        }
+
+        String header = exchange.getRequest().getHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        String token = header.substring(7);
+        String email;
+        try {
+            email = jwtUtil.extractEmail(token);
+        } catch (JwtException e) {
+            return unauthorized(exchange.getResponse(), "Token has expired or is invalid. Please log in again.");
+        }
+
+        // Decide on the user lookup alone; the chain itself completes empty
+        return userRepository.findByEmail(email)
+                .filter(user -> jwtUtil.validateToken(token))
+                .map(user -> chain.filter(exchange)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                                new UsernamePasswordAuthenticationToken(user.email(), null, Collections.emptyList()))))
+                .defaultIfEmpty(Mono.defer(() -> unauthorized(exchange.getResponse(), "Invalid token. Please log in again.")))
+                .flatMap(Function.identity());
+    }
+
+    private Mono<Void> unauthorized(ServerHttpResponse response, String message) {
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        DataBuffer buffer = response.bufferFactory().wrap(message.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(buffer));
+    }
+}
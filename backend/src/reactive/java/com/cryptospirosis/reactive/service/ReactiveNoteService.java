@@ -0,0 +1,135 @@
+package com.cryptospirosis.reactive.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.cryptospirosis.notes.entity.NoteEntity;
+import com.cryptospirosis.notes.service.NoteBodyCodec;
+import com.cryptospirosis.reactive.entity.NoteRow;
+import com.cryptospirosis.reactive.entity.NoteView;
+import com.cryptospirosis.reactive.repository.ReactiveNoteRepository;
+import com.cryptospirosis.reactive.repository.ReactivePayeeRepository;
+import com.cryptospirosis.reactive.repository.ReactiveUserRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Non-blocking counterpart of NoteService over the same tables; NoteEntity is only used as the JSON shape
+@Service
+public class ReactiveNoteService {
+
+    private final ReactiveNoteRepository noteRepository;
+    private final ReactiveUserRepository userRepository;
+    private final ReactivePayeeRepository payeeRepository;
+    private final NoteBodyCodec bodyCodec;
+
+    public ReactiveNoteService(ReactiveNoteRepository noteRepository, ReactiveUserRepository userRepository,
+            ReactivePayeeRepository payeeRepository, NoteBodyCodec bodyCodec) {
+        this.noteRepository = noteRepository;
+        this.userRepository = userRepository;
+        this.payeeRepository = payeeRepository;
+        this.bodyCodec = bodyCodec;
+    }
+
+    public Flux<NoteEntity> getNotesByUser(Long userId) {
+        return noteRepository.findViewsByUserId(userId).map(this::toNote);
+    }
+
+    public Mono<NoteEntity> getNoteById(Long id) {
+        return noteRepository.findViewById(id).map(this::toNote);
+    }
+
+    @Transactional
+    public Mono<NoteEntity> createNote(Long userId, NoteEntity note) {
+        return userRepository.findById(userId)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("User not found")))
+                .flatMap(user -> internPayee(userId, note.getPayeeAddress()))
+                .flatMap(payeeId -> {
+                    NoteRow row = new NoteRow();
+                    row.setUserId(userId);
+                    row.setCreatedAt(LocalDateTime.now());
+                    return write(row, note, payeeId.orElse(null));
+                });
+    }
+
+    @Transactional
+    public Mono<NoteEntity> updateNote(Long id, NoteEntity updatedNote) {
+        return noteRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Note not found")))
+                .flatMap(row -> internPayee(row.getUserId(), updatedNote.getPayeeAddress())
+                        .flatMap(payeeId -> adjustTotals(row.getPayeeId(), -1, row.getPayeeAmount())
+                                .then(write(row, updatedNote, payeeId.orElse(null)))));
+    }
+
+    @Transactional
+    public Mono<Integer> deleteNote(Long id) {
+        List<Long> ids = List.of(id);
+        return payeeRepository.releaseNotes(ids).then(noteRepository.deleteByIds(ids));
+    }
+
+    @Transactional
+    public Mono<Integer> deleteNote(Long userId, Long id) {
+        return deleteNotes(userId, List.of(id));
+    }
+
+    @Transactional
+    public Mono<Integer> deleteNotes(Long userId, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(0);
+        }
+        return payeeRepository.releaseNotesOfUser(ids, userId)
+                .then(noteRepository.deleteByIdsAndUserId(ids, userId));
+    }
+
+    private Mono<NoteEntity> write(NoteRow row, NoteEntity note, Long payeeId) {
+        row.setTitle(note.getTitle());
+        row.setBody(note.getBody() == null ? null : bodyCodec.encode(note.getBody()));
+        row.setPayeeId(payeeId);
+        row.setPayeeAmount(note.getPayeeAmount());
+        return adjustTotals(payeeId, 1, note.getPayeeAmount())
+                .then(noteRepository.save(row))
+                .flatMap(saved -> getNoteById(saved.getNotesId()));
+    }
+
+    // Same rules as PayeeService.intern: inserted in the caller's transaction, where a lost race only
+    // undoes the failed statement, then read back with a lock so the winner's row is seen even when it
+    // was committed after this transaction's snapshot
+    private Mono<Optional<Long>> internPayee(Long userId, String address) {
+        if (address == null || address.isBlank()) {
+            return Mono.just(Optional.empty());
+        }
+        String trimmed = address.trim();
+        return payeeRepository.findByUserIdAndAddress(userId, trimmed)
+                .switchIfEmpty(Mono.defer(() -> payeeRepository.insert(userId, trimmed)
+                        .onErrorResume(DuplicateKeyException.class, e -> Mono.just(0))
+                        .then(payeeRepository.lockByUserIdAndAddress(userId, trimmed))
+                        .switchIfEmpty(Mono.error(() ->
+                                new IllegalStateException("Payee vanished while interning " + trimmed)))))
+                .map(payee -> Optional.of(payee.payeeId()));
+    }
+
+    private Mono<Integer> adjustTotals(Long payeeId, int notes, BigDecimal amount) {
+        if (payeeId == null) {
+            return Mono.just(0);
+        }
+        BigDecimal delta = amount == null ? BigDecimal.ZERO : amount;
+        return payeeRepository.adjustTotals(payeeId, notes, notes < 0 ? delta.negate() : delta);
+    }
+
+    private NoteEntity toNote(NoteView view) {
+        NoteEntity note = new NoteEntity();
+        note.setNotesId(view.notesId());
+        note.setTitle(view.title());
+        note.setBody(view.body() == null ? null : bodyCodec.decode(view.body()));
+        note.setPayeeAddress(view.payeeAddress());
+        note.setPayeeAmount(view.payeeAmount());
+        note.setCreatedAt(view.createdAt());
+        return note;
+    }
+}
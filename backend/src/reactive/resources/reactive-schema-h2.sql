@@ -0,0 +1,26 @@
+-- Tables as generated by the MVC app's Hibernate mapping, for local runs against R2DBC H2
+CREATE TABLE IF NOT EXISTS users (
+    user_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS payees (
+    payee_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users (user_id),
+    address VARCHAR(255) NOT NULL,
+    note_count BIGINT NOT NULL,
+    total_amount DECIMAL(19, 6) NOT NULL,
+    UNIQUE (user_id, address)
+);
+
+CREATE TABLE IF NOT EXISTS notes (
+    notes_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    body BLOB,
+    payee_id BIGINT REFERENCES payees (payee_id),
+    payee_amount DECIMAL(19, 6),
+    created_at TIMESTAMP(6) NOT NULL,
+    user_id BIGINT NOT NULL REFERENCES users (user_id)
+);
@@ -0,0 +1,132 @@
+package com.cryptospirosis.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.cryptospirosis.notes.entity.NoteEntity;
+import com.cryptospirosis.reactive.repository.ReactivePayeeRepository;
+import com.cryptospirosis.reactive.service.ReactiveNoteService;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.config.name=reactive")
+@ActiveProfiles("h2")
+class ReactiveNotesApplicationTests {
+
+	@Autowired
+	private WebTestClient client;
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Autowired
+	private ReactivePayeeRepository payeeRepository;
+
+	@Autowired
+	private ReactiveNoteService noteService;
+
+	@Autowired
+	private ReactiveTransactionManager transactionManager;
+
+	@Test
+	void noteRoutesMatchMvcApi() {
+		Long userId = databaseClient
+				.sql("INSERT INTO users (username, email, password) VALUES ('reactive', 'reactive@example.com', 'x')")
+				.filter(statement -> statement.returnGeneratedValues("user_id"))
+				.map(row -> row.get("user_id", Long.class))
+				.one()
+				.block();
+
+		NoteEntity note = new NoteEntity();
+		note.setTitle("rent");
+		note.setBody("addr1q".repeat(200));
+		note.setPayeeAddress(" addr1qxyz ");
+		note.setPayeeAmount(new BigDecimal("12.5"));
+
+		NoteEntity created = client.post().uri("/api/notes/user/{userId}", userId).bodyValue(note)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(NoteEntity.class).returnResult().getResponseBody();
+		assertThat(created.getBody()).isEqualTo(note.getBody());
+		assertThat(created.getPayeeAddress()).isEqualTo("addr1qxyz");
+
+		client.get().uri("/api/notes/user/{userId}", userId)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(NoteEntity.class).hasSize(1);
+
+		assertThat(payeeRepository.findByUserIdAndAddress(userId, "addr1qxyz").block().totalAmount())
+				.isEqualByComparingTo("12.5");
+
+		client.method(org.springframework.http.HttpMethod.DELETE).uri("/api/notes/user/{userId}", userId)
+				.bodyValue(List.of(created.getNotesId()))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(Map.class).isEqualTo(Map.of("deleted", 1));
+
+		assertThat(payeeRepository.findByUserIdAndAddress(userId, "addr1qxyz").block().noteCount()).isZero();
+		client.get().uri("/api/notes/{id}", created.getNotesId()).exchange().expectStatus().isNotFound();
+	}
+
+	// The lost insert race: the duplicate is ignored and the locking read returns the winner's row. H2 keeps
+	// even locking reads inside a REPEATABLE READ snapshot, so this runs at its default READ COMMITTED.
+	@Test
+	void payeeInsertedConcurrentlyIsInterned() {
+		Long userId = insertUser("race", "race@example.com");
+		NoteEntity note = new NoteEntity();
+		note.setTitle("late payee");
+		note.setPayeeAddress("addr1late");
+		note.setPayeeAmount(BigDecimal.ONE);
+
+		NoteEntity created = TransactionalOperator.create(transactionManager).transactional(
+				payeeRepository.findByUserIdAndAddress(userId, "addr1late").hasElement()
+						.doOnNext(found -> assertThat(found).isFalse())
+						// a concurrent writer on its own connection wins the insert race
+						.then(Mono.fromRunnable(() -> databaseClient
+								.sql("INSERT INTO payees (user_id, address, note_count, total_amount) VALUES (:userId, 'addr1late', 0, 0)")
+								.bind("userId", userId)
+								.then()
+								.block())
+								.subscribeOn(Schedulers.boundedElastic())
+								.contextWrite(context -> Context.empty()))
+						.then(noteService.createNote(userId, note)))
+				.block();
+
+		assertThat(created).isNotNull();
+		assertThat(created.getPayeeAddress()).isEqualTo("addr1late");
+		assertThat(payeeRepository.findByUserIdAndAddress(userId, "addr1late").block().noteCount()).isEqualTo(1);
+	}
+
+	@Test
+	void invalidTokenIsRejected() {
+		client.get().uri("/api/dashboard").header("Authorization", "Bearer not-a-token")
+				.exchange()
+				.expectStatus().isUnauthorized();
+	}
+
+	private Long insertUser(String username, String email) {
+		return databaseClient
+				.sql("INSERT INTO users (username, email, password) VALUES (:username, :email, 'x')")
+				.bind("username", username)
+				.bind("email", email)
+				.filter(statement -> statement.returnGeneratedValues("user_id"))
+				.map(row -> row.get("user_id", Long.class))
+				.one()
+				.block();
+	}
+}
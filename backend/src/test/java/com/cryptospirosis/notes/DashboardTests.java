@@ -0,0 +1,131 @@
+package com.cryptospirosis.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import com.cryptospirosis.notes.controller.DashboardController;
+import com.cryptospirosis.notes.entity.NoteEntity;
+import com.cryptospirosis.notes.service.DashboardService;
+import com.cryptospirosis.notes.service.NoteService;
+import com.cryptospirosis.notes.service.UserNotFoundException;
+import com.jayway.jsonpath.JsonPath;
+
+// Goes through the real security filter chain: tokens come from /api/auth, not from a mock user
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class DashboardTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Test
+	void loginTokenOpensTheDashboard() throws Exception {
+		String token = signUpAndLogIn("dash", "dash@example.com");
+
+		String etag = mockMvc.perform(get("/api/dashboard").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.user.username").value("dash"))
+				.andExpect(jsonPath("$.user.email").value("dash@example.com"))
+				.andExpect(jsonPath("$.user.password").doesNotExist())
+				.andExpect(jsonPath("$.notes").isArray())
+				.andExpect(jsonPath("$.totals.noteCount").value(0))
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get("/api/dashboard")
+						.header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void etagChangesWhenAHashCollidingTitleChanges() throws Exception {
+		String token = signUpAndLogIn("etag", "etag@example.com");
+		String etag = dashboardEtag(token);
+		Long userId = ((Number) JsonPath.read(dashboard(token), "$.user.userId")).longValue();
+		Long noteId = noteService.createNote(userId, new NoteEntity("Aa", "body", null)).getNotesId();
+		String before = dashboardEtag(token);
+		assertNotEquals(etag, before);
+
+		// "Aa" and "BB" share a String.hashCode()
+		noteService.updateNote(noteId, new NoteEntity("BB", "body", null));
+		mockMvc.perform(get("/api/dashboard")
+						.header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+						.header(HttpHeaders.IF_NONE_MATCH, before))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.notes[0].title").value("BB"));
+	}
+
+	@Test
+	void dashboardNeedsAToken() throws Exception {
+		mockMvc.perform(get("/api/dashboard"))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void onlyAMissingUserIsNotFound() {
+		DashboardService service = mock(DashboardService.class);
+		DashboardController controller = new DashboardController(service);
+		Authentication authentication = new TestingAuthenticationToken("ghost@example.com", null);
+		WebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+
+		doThrow(new UserNotFoundException("User not found")).when(service).getDashboard("ghost@example.com");
+		assertEquals(HttpStatus.NOT_FOUND, controller.getDashboard(authentication, request).getStatusCode());
+
+		doThrow(new QueryTimeoutException("timed out")).when(service).getDashboard("ghost@example.com");
+		assertThrows(QueryTimeoutException.class, () -> controller.getDashboard(authentication, request));
+	}
+
+	private String dashboard(String token) throws Exception {
+		return mockMvc.perform(get("/api/dashboard").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+	}
+
+	private String dashboardEtag(String token) throws Exception {
+		return mockMvc.perform(get("/api/dashboard").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+	}
+
+	private String signUpAndLogIn(String username, String email) throws Exception {
+		mockMvc.perform(post("/api/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"username\":\"" + username + "\",\"email\":\"" + email + "\",\"password\":\"secret\"}"))
+				.andExpect(status().isCreated());
+		String login = mockMvc.perform(post("/api/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"username\":\"" + username + "\",\"password\":\"secret\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return JsonPath.read(login, "$.token");
+	}
+}
@@ -0,0 +1,177 @@
+package com.cryptospirosis.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.cryptospirosis.notes.controller.UserController;
+import com.cryptospirosis.notes.entity.NoteEntity;
+import com.cryptospirosis.notes.entity.PayeeEntity;
+import com.cryptospirosis.notes.entity.UserEntity;
+import com.cryptospirosis.notes.service.NoteService;
+import com.cryptospirosis.notes.service.PayeeService;
+import com.cryptospirosis.notes.service.UserNotFoundException;
+import com.cryptospirosis.notes.service.UserService;
+
+// Chunks of 3, so a handful of notes goes through the chunked and background paths
+@SpringBootTest(properties = {
+		"notes.delete.chunk-size=3",
+		"spring.datasource.url=jdbc:h2:mem:notes-deletion;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000" })
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class DeletionTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private PayeeService payeeService;
+
+	@Test
+	void userNoteIsOnlyDeletedByItsOwner() throws Exception {
+		Long owner = createUser("owner");
+		Long other = createUser("other");
+		Long noteId = createNote(owner, "addr-owner", "5").getNotesId();
+
+		mockMvc.perform(delete("/api/notes/user/{userId}/{id}", other, noteId))
+				.andExpect(status().isNotFound());
+		assertTrue(noteService.getNoteById(noteId).isPresent());
+		assertPayee(owner, "addr-owner", 1, "5");
+
+		mockMvc.perform(delete("/api/notes/user/{userId}/{id}", owner, noteId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.deleted").value(1));
+		assertTrue(noteService.getNoteById(noteId).isEmpty());
+		assertPayee(owner, "addr-owner", 0, "0");
+	}
+
+	@Test
+	void bulkDeleteReleasesPayeeTotalsChunkByChunk() throws Exception {
+		Long owner = createUser("bulk");
+		Long other = createUser("bulkother");
+		List<Long> ids = new ArrayList<>();
+		for (int i = 1; i <= 7; i++) {
+			ids.add(createNote(owner, "addr-bulk", String.valueOf(i)).getNotesId());
+		}
+		Long kept = createNote(owner, "addr-bulk", "10").getNotesId();
+		Long foreign = createNote(other, "addr-bulk", "3").getNotesId();
+		ids.add(foreign);
+
+		// 8 ids in chunks of 3; the other user's note is skipped
+		mockMvc.perform(delete("/api/notes/user/{userId}", owner)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(ids.toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.deleted").value(7));
+
+		assertTrue(noteService.getNoteById(kept).isPresent());
+		assertTrue(noteService.getNoteById(foreign).isPresent());
+		assertPayee(owner, "addr-bulk", 1, "10");
+		assertPayee(other, "addr-bulk", 1, "3");
+	}
+
+	@Test
+	void smallAccountIsDeletedInline() throws Exception {
+		Long userId = createUser("small");
+		createNote(userId, "addr-small", "1");
+		createNote(userId, "addr-small", "2");
+
+		mockMvc.perform(delete("/api/users/{id}", userId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.notesDeleted").value(2))
+				.andExpect(jsonPath("$.usersDeleted").value(1))
+				.andExpect(jsonPath("$.message").value("User deleted successfully"));
+
+		assertTrue(userService.getUserById(userId).isEmpty());
+		assertTrue(payeeService.getPayeesByUser(userId).isEmpty());
+	}
+
+	@Test
+	void largeAccountIsPurgedInTheBackground() throws Exception {
+		Long userId = createUser("large");
+		for (int i = 0; i < 8; i++) {
+			createNote(userId, "addr-large", "1");
+		}
+
+		// The first chunk is full, so the rest goes to the cleanup executor
+		mockMvc.perform(delete("/api/users/{id}", userId))
+				.andExpect(status().isAccepted())
+				.andExpect(jsonPath("$.notesDeleted").value(3))
+				.andExpect(jsonPath("$.usersDeleted").value(0))
+				.andExpect(jsonPath("$.message").value("User deletion scheduled"));
+
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (userService.getUserById(userId).isPresent() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		assertTrue(userService.getUserById(userId).isEmpty());
+		assertTrue(noteService.getNotesByUser(userId).isEmpty());
+		assertTrue(payeeService.getPayeesByUser(userId).isEmpty());
+	}
+
+	@Test
+	void unknownUserIsNotFound() throws Exception {
+		mockMvc.perform(delete("/api/users/{id}", 999_999))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void onlyAMissingUserIsNotFound() {
+		UserService service = mock(UserService.class);
+		UserController controller = new UserController();
+		ReflectionTestUtils.setField(controller, "userService", service);
+
+		doThrow(new UserNotFoundException("User not found with id: 1")).when(service).deleteUser(1L);
+		assertEquals(HttpStatus.NOT_FOUND, controller.deleteUser(1L).getStatusCode());
+
+		// e.g. a note written after the catch-up purge still references the user row
+		doThrow(new DataIntegrityViolationException("FK_NOTES_USER")).when(service).deleteUser(1L);
+		assertThrows(DataIntegrityViolationException.class, () -> controller.deleteUser(1L));
+	}
+
+	private Long createUser(String username) {
+		return userService.createUser(new UserEntity(username, username + "@example.com", "secret")).getUserId();
+	}
+
+	private NoteEntity createNote(Long userId, String payeeAddress, String amount) {
+		NoteEntity note = new NoteEntity("note", "body", null);
+		note.setPayeeAddress(payeeAddress);
+		note.setPayeeAmount(new BigDecimal(amount));
+		return noteService.createNote(userId, note);
+	}
+
+	private void assertPayee(Long userId, String address, long noteCount, String totalAmount) {
+		PayeeEntity payee = payeeService.getPayeesByUser(userId).stream()
+				.filter(p -> p.getAddress().equals(address))
+				.findFirst()
+				.orElseThrow();
+		assertEquals(noteCount, payee.getNoteCount());
+		assertEquals(0, new BigDecimal(totalAmount).compareTo(payee.getTotalAmount()), payee.getTotalAmount().toString());
+	}
+}
@@ -0,0 +1,157 @@
+package com.cryptospirosis.notes;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.cryptospirosis.notes.entity.NoteEntity;
+import com.cryptospirosis.notes.entity.UserEntity;
+import com.cryptospirosis.notes.service.NoteService;
+import com.cryptospirosis.notes.service.UserService;
+
+// Runs on its own in-memory H2 database. The tester skips the HTTP filter chain, so callers are
+// mock users named by email, as JwtFilter would authenticate them.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:notes-graphql;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@AutoConfigureGraphQlTester
+@ActiveProfiles("h2")
+class GraphQlTests {
+
+	@Autowired
+	private GraphQlTester graphQlTester;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Test
+	@WithMockUser("graphql@example.com")
+	void userResolvesNotesAndTotals() {
+		Long userId = userService.createUser(new UserEntity("graphql", "graphql@example.com", "secret")).getUserId();
+		NoteEntity note = new NoteEntity("Rent", "October", null);
+		note.setPayeeAddress("0xabc");
+		note.setPayeeAmount(new BigDecimal("12.5"));
+		noteService.createNote(userId, note);
+
+		graphQlTester.document("{ user(id: " + userId + ") { username notes { title payeeAddress user { email } } totals { noteCount } } }")
+				.execute()
+				.path("user.username").entity(String.class).isEqualTo("graphql")
+				.path("user.notes[0].payeeAddress").entity(String.class).isEqualTo("0xabc")
+				.path("user.notes[0].user.email").entity(String.class).isEqualTo("graphql@example.com")
+				.path("user.totals.noteCount").entity(Long.class).isEqualTo(1L);
+	}
+
+	@Test
+	@WithMockUser("paged@example.com")
+	void userListsArePagedPerUser() {
+		Long userId = userService.createUser(new UserEntity("paged", "paged@example.com", "secret")).getUserId();
+		for (String title : new String[] {"First", "Second", "Third"}) {
+			NoteEntity note = new NoteEntity(title, null, null);
+			note.setPayeeAddress("0x" + title);
+			noteService.createNote(userId, note);
+		}
+
+		String lastId = graphQlTester.document("{ user(id: " + userId + ") { notes(first: 2) { id title } payees(first: 1) { address } } }")
+				.execute()
+				.path("user.notes[*].title").entityList(String.class).containsExactly("Third", "Second")
+				.path("user.payees[*].address").entityList(String.class).containsExactly("0xFirst")
+				.path("user.notes[1].id").entity(String.class).get();
+
+		graphQlTester.document("{ user(id: " + userId + ") { notes(first: 2, after: " + lastId + ") { title } } }")
+				.execute()
+				.path("user.notes[*].title").entityList(String.class).containsExactly("First");
+	}
+
+	@Test
+	@WithMockUser(username = "operator@example.com", roles = "OPERATOR")
+	void passwordIsNotInTheSchema() {
+		graphQlTester.document("{ users { password } }")
+				.execute()
+				.errors()
+				.expect(error -> error.getMessage().contains("password"))
+				.verify();
+	}
+
+	@Test
+	@WithMockUser(username = "operator@example.com", roles = "OPERATOR")
+	void expensiveQueriesAreRejected() {
+		graphQlTester.document("{ users(first: 100) { notes { title body } payees { address } } }")
+				.execute()
+				.errors()
+				.expect(error -> error.getMessage().contains("complexity"))
+				.verify();
+
+		graphQlTester.document("{ users(first: 5) { notes(first: 100) { title } } }")
+				.execute()
+				.errors()
+				.expect(error -> error.getMessage().contains("complexity"))
+				.verify();
+	}
+
+	@Test
+	@WithMockUser("alice@example.com")
+	void otherUsersAndTheirNotesReadAsMissing() {
+		Long alice = userService.createUser(new UserEntity("alice", "alice@example.com", "secret")).getUserId();
+		Long bob = userService.createUser(new UserEntity("bob", "bob@example.com", "secret")).getUserId();
+		Long aliceNote = noteService.createNote(alice, new NoteEntity("Mine", null, null)).getNotesId();
+		Long bobNote = noteService.createNote(bob, new NoteEntity("Bob's", null, null)).getNotesId();
+
+		graphQlTester.document("{ user(id: " + bob + ") { username notes { title } } }")
+				.execute()
+				.path("user").valueIsNull();
+		// Not even the title: only id and userId are always read
+		graphQlTester.document("{ note(id: " + bobNote + ") { title user { email } } }")
+				.execute()
+				.path("note").valueIsNull();
+
+		graphQlTester.document("{ note(id: " + aliceNote + ") { title user { username } } }")
+				.execute()
+				.path("note.title").entity(String.class).isEqualTo("Mine")
+				.path("note.user.username").entity(String.class).isEqualTo("alice");
+	}
+
+	@Test
+	@WithMockUser("lister@example.com")
+	void listingUsersNeedsTheOperatorRole() {
+		userService.createUser(new UserEntity("lister", "lister@example.com", "secret"));
+
+		graphQlTester.document("{ users { username } }")
+				.execute()
+				.errors()
+				.expect(error -> error.getErrorType() == ErrorType.FORBIDDEN)
+				.verify()
+				.path("users").pathDoesNotExist();
+	}
+
+	@Test
+	@WithMockUser(username = "ops@example.com", roles = "OPERATOR")
+	void operatorsReadAnyUser() {
+		Long userId = userService.createUser(new UserEntity("audited", "audited@example.com", "secret")).getUserId();
+		noteService.createNote(userId, new NoteEntity("Audited", null, null));
+
+		graphQlTester.document("{ user(id: " + userId + ") { notes { title } } users(first: 100) { id } }")
+				.execute()
+				.path("user.notes[0].title").entity(String.class).isEqualTo("Audited")
+				.path("users[*].id").entityList(String.class).contains(String.valueOf(userId));
+	}
+
+	@Test
+	void anonymousCallersAreUnauthorized() {
+		Long userId = userService.createUser(new UserEntity("anon", "anon@example.com", "secret")).getUserId();
+
+		graphQlTester.document("{ user(id: " + userId + ") { username } }")
+				.execute()
+				.errors()
+				.expect(error -> error.getErrorType() == ErrorType.UNAUTHORIZED)
+				.verify()
+				.path("user").valueIsNull();
+	}
+}
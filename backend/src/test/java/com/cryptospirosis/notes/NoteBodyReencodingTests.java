@@ -0,0 +1,119 @@
+package com.cryptospirosis.notes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cryptospirosis.notes.entity.NoteEntity;
+import com.cryptospirosis.notes.entity.UserEntity;
+import com.cryptospirosis.notes.repository.NoteRepository;
+import com.cryptospirosis.notes.service.NoteBodyCodec;
+import com.cryptospirosis.notes.service.NoteBodyReencodingJob;
+import com.cryptospirosis.notes.service.NoteService;
+import com.cryptospirosis.notes.service.UserService;
+
+// The native compressible-row queries (OCTET_LENGTH, SUBSTRING on a BLOB) and the job, on H2
+@SpringBootTest
+@ActiveProfiles("h2")
+class NoteBodyReencodingTests {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private NoteRepository noteRepository;
+
+	@Autowired
+	private NoteBodyCodec codec;
+
+	@Autowired
+	private NoteBodyReencodingJob job;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void legacyPlainRowsAreFoundLockedAndCompressed() {
+		Long userId = userService.createUser(new UserEntity("legacy", "legacy@example.com", "secret")).getUserId();
+		String longBody = "Legacy body written before compression. ".repeat(40);
+		Long shortNote = noteService.createNote(userId, new NoteEntity("short", "short body", null)).getNotesId();
+		Long compressed = noteService.createNote(userId, new NoteEntity("new", longBody, null)).getNotesId();
+		Long legacy = legacyNote(userId, longBody);
+		Long laterLegacy = legacyNote(userId, longBody + "more");
+		long before = shortNote - 1;
+		int threshold = codec.getThreshold();
+
+		assertTrue(codec.isCompressed(storedBody(compressed)));
+		assertFalse(codec.isCompressed(storedBody(legacy)));
+		// A legacy plain row reads back through NoteBodyConverter unchanged
+		assertEquals(longBody, noteService.getNoteById(legacy).orElseThrow().getBody());
+
+		assertEquals(List.of(legacy, laterLegacy), noteRepository.findCompressibleIdsAfter(before, threshold, 10));
+		assertEquals(List.of(legacy), noteRepository.findCompressibleIdsAfter(before, threshold, 1));
+		assertEquals(List.of(laterLegacy), noteRepository.findCompressibleIdsAfter(legacy, threshold, 10));
+
+		Map<Long, byte[]> locked = transactionTemplate.execute(status -> {
+			Map<Long, byte[]> rows = new HashMap<>();
+			for (Object[] row : noteRepository.lockCompressibleBodies(
+					List.of(shortNote, compressed, legacy, laterLegacy), threshold)) {
+				rows.put(((Number) row[0]).longValue(), bytes(row[1]));
+			}
+			return rows;
+		});
+		assertEquals(2, locked.size());
+		assertArrayEquals(longBody.getBytes(StandardCharsets.UTF_8), locked.get(legacy));
+		assertArrayEquals((longBody + "more").getBytes(StandardCharsets.UTF_8), locked.get(laterLegacy));
+
+		job.reencodeAll();
+
+		assertTrue(codec.isCompressed(storedBody(legacy)));
+		assertTrue(codec.isCompressed(storedBody(laterLegacy)));
+		assertEquals(longBody, noteService.getNoteById(legacy).orElseThrow().getBody());
+		assertEquals(longBody + "more", noteService.getNoteById(laterLegacy).orElseThrow().getBody());
+		assertEquals("short body", noteService.getNoteById(shortNote).orElseThrow().getBody());
+		assertEquals(List.of(), noteRepository.findCompressibleIdsAfter(before, threshold, 10));
+	}
+
+	// Stored as plain UTF-8 whatever its size, as rows were before compression existed
+	private Long legacyNote(Long userId, String body) {
+		Long id = noteService.createNote(userId, new NoteEntity("legacy", "placeholder", null)).getNotesId();
+		jdbcTemplate.update("UPDATE notes SET body = ? WHERE notes_id = ?", body.getBytes(StandardCharsets.UTF_8), id);
+		return id;
+	}
+
+	private byte[] storedBody(Long id) {
+		return jdbcTemplate.queryForObject("SELECT body FROM notes WHERE notes_id = ?", byte[].class, id);
+	}
+
+	private static byte[] bytes(Object value) {
+		if (value instanceof Blob blob) {
+			try {
+				return blob.getBytes(1, (int) blob.length());
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return (byte[]) value;
+	}
+}
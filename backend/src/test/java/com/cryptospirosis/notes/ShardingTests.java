@@ -0,0 +1,216 @@
+package com.cryptospirosis.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.cryptospirosis.notes.entity.NoteEntity;
+import com.cryptospirosis.notes.entity.PayeeEntity;
+import com.cryptospirosis.notes.entity.UserEntity;
+import com.cryptospirosis.notes.repository.NoteRepository;
+import com.cryptospirosis.notes.repository.UserRepository;
+import com.cryptospirosis.notes.service.NoteService;
+import com.cryptospirosis.notes.service.PayeeBackfillJob;
+import com.cryptospirosis.notes.service.PayeeService;
+import com.cryptospirosis.notes.service.ShardMigrationService;
+import com.cryptospirosis.notes.service.ShardMigrationService.Migration;
+import com.cryptospirosis.notes.service.ShardRouter;
+import com.cryptospirosis.notes.service.UserService;
+
+// Runs against the "shards" profile: main plus two note shards, all in-memory H2
+@SpringBootTest
+@ActiveProfiles("shards")
+class ShardingTests {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private PayeeService payeeService;
+
+	@Autowired
+	private PayeeBackfillJob payeeBackfillJob;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private ShardMigrationService migrationService;
+
+	@Autowired
+	private NoteRepository noteRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void ringPlacesUsersOnEveryShard() {
+		Set<String> used = LongStream.rangeClosed(1, 1000)
+				.mapToObj(shardRouter::ringShardOf)
+				.collect(Collectors.toSet());
+		assertEquals(Set.copyOf(shardRouter.getShards()), used);
+	}
+
+	@Test
+	void notesFollowTheirUserAcrossShards() {
+		Long userId = userService.createUser(new UserEntity("sharded", "sharded@example.com", "secret")).getUserId();
+		String home = shardRouter.shardOf(userId);
+		assertEquals(shardRouter.ringShardOf(userId), home);
+
+		NoteEntity note = new NoteEntity("Rent", "October", null);
+		note.setPayeeAddress("0xabc");
+		note.setPayeeAmount(new BigDecimal("12.5"));
+		Long noteId = noteService.createNote(userId, note).getNotesId();
+		assertEquals(home, shardRouter.shardOfNote(noteId));
+		assertEquals(1, countNotes(home, userId));
+		assertTrue(noteService.getNoteById(noteId).isPresent());
+
+		String target = shardRouter.getShards().stream().filter(shard -> !shard.equals(home)).findFirst().orElseThrow();
+		Migration migration = migrationService.migrate(userId, target);
+		assertEquals(1, migration.notes());
+		assertEquals(1, migration.payees());
+		assertEquals(target, shardRouter.shardOf(userId));
+		assertEquals(0, countNotes(home, userId));
+
+		List<NoteEntity> notes = noteService.getNotesByUser(userId);
+		assertEquals(1, notes.size());
+		assertEquals(noteId, notes.get(0).getNotesId());
+		assertEquals("October", notes.get(0).getBody());
+		assertEquals("0xabc", notes.get(0).getPayeeAddress());
+		assertEquals(target, shardRouter.shardOfNote(noteId));
+		assertTrue(noteService.getNoteById(noteId).isPresent());
+		assertEquals(1, payeeService.getPayeesByUser(userId).get(0).getNoteCount());
+
+		assertEquals(1, userService.deleteUser(userId).notesDeleted());
+		assertEquals(0, countNotes(target, userId));
+		assertTrue(userService.getUserById(userId).isEmpty());
+	}
+
+	@Test
+	void legacyPayeeAddressesAreBackfilled() {
+		Long userId = userService.createUser(new UserEntity("legacy", "legacy@example.com", "secret")).getUserId();
+		String home = shardRouter.shardOf(userId);
+		for (String shard : shardRouter.getShards()) {
+			shardRouter.onShard(shard, () -> {
+				jdbcTemplate.execute("ALTER TABLE notes ADD COLUMN IF NOT EXISTS payee_address VARCHAR(255)");
+				return null;
+			});
+		}
+		NoteEntity note = new NoteEntity("Old", "note", null);
+		note.setPayeeAmount(new BigDecimal("7.5"));
+		Long noteId = noteService.createNote(userId, note).getNotesId();
+		shardRouter.onShard(home, () -> jdbcTemplate.update(
+				"UPDATE notes SET payee_address = ' 0xold ' WHERE notes_id = ?", noteId));
+
+		payeeBackfillJob.backfillAll();
+		payeeBackfillJob.backfillAll();
+
+		assertEquals("0xold", noteService.getNoteById(noteId).orElseThrow().getPayeeAddress());
+		PayeeEntity payee = payeeService.getPayeesByUser(userId).get(0);
+		assertEquals(1, payee.getNoteCount());
+		assertEquals(0, new BigDecimal("7.5").compareTo(payee.getTotalAmount()));
+		assertEquals(0, (long) shardRouter.onShard(home, () -> jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM notes WHERE payee_address IS NOT NULL", Long.class)));
+	}
+
+	@Test
+	void migrationWaitsForRunningWrites() throws Exception {
+		Long userId = userService.createUser(new UserEntity("busy", "busy@example.com", "secret")).getUserId();
+		String home = shardRouter.shardOf(userId);
+		String target = shardRouter.getShards().stream().filter(shard -> !shard.equals(home)).findFirst().orElseThrow();
+
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<NoteEntity> write = executor.submit(() -> shardRouter.onUserShardForWrite(userId, () -> {
+				NoteEntity note = new NoteEntity("Late", "write", userRepository.findById(userId).orElseThrow());
+				note.setCreatedAt(LocalDateTime.now());
+				NoteEntity saved = noteRepository.save(note);
+				writing.countDown();
+				await(release);
+				return saved;
+			}));
+			assertTrue(writing.await(5, TimeUnit.SECONDS));
+			Future<Migration> migration = executor.submit(() -> migrationService.migrate(userId, target));
+			Thread.sleep(300);
+			assertFalse(migration.isDone());
+
+			release.countDown();
+			Long noteId = write.get(5, TimeUnit.SECONDS).getNotesId();
+			assertEquals(1, migration.get(5, TimeUnit.SECONDS).notes());
+			assertEquals(1, countNotes(target, userId));
+			assertEquals(0, countNotes(home, userId));
+			assertEquals(noteId, noteService.getNotesByUser(userId).get(0).getNotesId());
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	// More writers than main's pool has connections, each holding one for its user-row lock, while
+	// the note id counter has to be refilled
+	@Test
+	void concurrentWritesDoNotStarveTheNoteIdAllocator() throws Exception {
+		int writers = 24;
+		List<Long> userIds = LongStream.range(0, writers)
+				.mapToObj(i -> userService.createUser(new UserEntity("writer" + i, "writer" + i + "@example.com", "secret")).getUserId())
+				.toList();
+		ExecutorService executor = Executors.newFixedThreadPool(writers);
+		try {
+			List<Future<Integer>> writes = userIds.stream()
+					.map(userId -> executor.submit(() -> {
+						for (int i = 0; i < 25; i++) {
+							noteService.createNote(userId, new NoteEntity("Note " + i, "body", null));
+						}
+						return 25;
+					}))
+					.toList();
+			for (Future<Integer> write : writes) {
+				assertEquals(25, write.get(20, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		for (Long userId : userIds) {
+			assertEquals(25, countNotes(shardRouter.shardOf(userId), userId));
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private long countNotes(String shard, Long userId) {
+		return shardRouter.onShard(shard,
+				() -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notes WHERE user_id = ?", Long.class, userId));
+	}
+}
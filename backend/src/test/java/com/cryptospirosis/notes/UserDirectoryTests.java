@@ -0,0 +1,166 @@
+package com.cryptospirosis.notes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cryptospirosis.notes.entity.UserEntity;
+import com.cryptospirosis.notes.repository.UserRepository;
+import com.cryptospirosis.notes.repository.UserRepository.UserSummary;
+import com.cryptospirosis.notes.service.UserService;
+import com.jayway.jsonpath.JsonPath;
+
+// GET /api/users streams its page (and its errors), so every request is completed with an async dispatch
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:notes-directory;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class UserDirectoryTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void pagesByIdResumeAfterTheLastId() throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (String name : List.of("page1", "page2", "page3", "page4", "page5")) {
+			ids.add(createUser(name, name + "@example.com"));
+		}
+
+		List<Long> seen = new ArrayList<>();
+		long after = ids.get(0) - 1;
+		for (int page = 0; page < 3; page++) {
+			List<Long> pageIds = userIds(page(get("/api/users").param("after", String.valueOf(after)).param("limit", "2")));
+			assertEquals(page < 2 ? 2 : 1, pageIds.size());
+			seen.addAll(pageIds);
+			after = pageIds.get(pageIds.size() - 1);
+		}
+		assertEquals(ids, seen);
+	}
+
+	@Test
+	void usernameSearchPagesInUsernameOrder() throws Exception {
+		createUser("keyc", "keyc@example.com");
+		createUser("keya", "keya@example.com");
+		createUser("keyb", "keyb@example.com");
+		createUser("kez", "kez@example.com");
+
+		assertEquals(List.of("keya", "keyb"), usernames(page(get("/api/users").param("username", "key").param("limit", "2"))));
+		assertEquals(List.of("keyc"),
+				usernames(page(get("/api/users").param("username", "key").param("after", "keyb").param("limit", "2"))));
+
+		String json = page(get("/api/users").param("username", "keya"));
+		assertEquals(List.of("keya@example.com"), JsonPath.read(json, "$[*].email"));
+		assertEquals(List.of(), JsonPath.read(json, "$[*].password"));
+	}
+
+	@Test
+	void wildcardsInThePrefixMatchLiterally() throws Exception {
+		createUser("lit_1", "lit_1@example.com");
+		createUser("litx1", "litx1@example.com");
+		createUser("lit%2", "lit%2@example.com");
+		createUser("litz2", "litz2@example.com");
+		createUser("lit!3", "lit!3@example.com");
+		createUser("lit!!3", "lit!!3@example.com");
+
+		assertEquals(List.of("lit_1"), usernames(page(get("/api/users").param("username", "lit_"))));
+		assertEquals(List.of("lit%2"), usernames(page(get("/api/users").param("username", "lit%"))));
+		assertEquals(List.of("lit!!3", "lit!3"), usernames(page(get("/api/users").param("username", "lit!"))));
+		assertEquals(List.of("lit!!3"), usernames(page(get("/api/users").param("username", "lit!!"))));
+		assertEquals(List.of("lit_1"), usernames(page(get("/api/users").param("email", "lit_"))));
+		assertEquals(List.of("lit%2"), usernames(page(get("/api/users").param("email", "lit%2@"))));
+	}
+
+	@Test
+	void invalidQueriesAreRejected() throws Exception {
+		for (String after : List.of("abc", "-1", "1234567890123456789")) {
+			mockMvc.perform(asyncDispatch(started(get("/api/users").param("after", after))))
+					.andExpect(status().isBadRequest())
+					.andExpect(content().string("after must be a user id"));
+		}
+		mockMvc.perform(asyncDispatch(started(get("/api/users").param("username", "a").param("email", "a"))))
+				.andExpect(status().isBadRequest())
+				.andExpect(content().string("Search by username or by email, not both"));
+		// A search pages on the searched column, so after is not an id there
+		page(get("/api/users").param("username", "a").param("after", "abc"));
+	}
+
+	@Test
+	void limitIsClampedAndAppliedToTheQuery() throws Exception {
+		createUser("clamp1", "clamp1@example.com");
+		createUser("clamp2", "clamp2@example.com");
+
+		mockMvc.perform(asyncDispatch(started(get("/api/users").param("username", "clamp").param("limit", "0"))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1));
+
+		// The Pageable bounds the streamed query itself, not only what the controller writes
+		for (int limit : new int[] { 1, 2 }) {
+			PageRequest page = PageRequest.of(0, limit);
+			List<Supplier<Stream<UserSummary>>> queries = List.of(
+					() -> userRepository.streamSummariesAfter(0L, page),
+					() -> userRepository.streamSummariesByUsernamePrefix("clamp%", "", page),
+					() -> userRepository.streamSummariesByEmailPrefix("clamp%", "", page));
+			for (Supplier<Stream<UserSummary>> query : queries) {
+				transactionTemplate.executeWithoutResult(status -> {
+					try (Stream<UserSummary> rows = query.get()) {
+						assertEquals(limit, rows.count());
+					}
+				});
+			}
+		}
+	}
+
+	private Long createUser(String username, String email) {
+		return userService.createUser(new UserEntity(username, email, "secret")).getUserId();
+	}
+
+	private String page(MockHttpServletRequestBuilder request) throws Exception {
+		return mockMvc.perform(asyncDispatch(started(request)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+	}
+
+	private MvcResult started(MockHttpServletRequestBuilder request) throws Exception {
+		return mockMvc.perform(request)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+	}
+
+	private static List<Long> userIds(String json) {
+		List<Number> ids = JsonPath.read(json, "$[*].userId");
+		return ids.stream().map(Number::longValue).toList();
+	}
+
+	private static List<String> usernames(String json) {
+		return JsonPath.read(json, "$[*].username");
+	}
+}
@@ -0,0 +1,94 @@
+package com.cryptospirosis.notes.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+
+	@Test
+	void sizedForTheExpectedEntriesAndRate() {
+		// -1000 * ln(0.01) / ln(2)^2 = 9586 bits, rounded up to whole 64-bit words
+		assertEquals(1200, new BloomFilter(1000, 0.01).sizeInBytes());
+		assertEquals(0.0, new BloomFilter(1000, 0.01).expectedFalsePositiveRate());
+		// An empty table still gets a usable filter
+		assertEquals(8, new BloomFilter(0, 0.01).sizeInBytes());
+	}
+
+	@Test
+	void observedFalsePositiveRateStaysNearTheTarget() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.add("user" + i);
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("absent" + i)) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+		double expected = filter.expectedFalsePositiveRate();
+		assertTrue(expected > 0.005 && expected < 0.02, "expected rate: " + expected);
+	}
+
+	@Test
+	void noFalseNegativesAfterAdd() {
+		BloomFilter filter = new BloomFilter(1000, 0.01);
+		assertFalse(filter.mightContain("user0"));
+		// Twice the capacity: an overfull filter answers "maybe" more often, never "no" for an added value
+		for (int i = 0; i < 2000; i++) {
+			filter.add("user" + i);
+		}
+		for (int i = 0; i < 2000; i++) {
+			assertTrue(filter.mightContain("user" + i), "user" + i);
+		}
+	}
+
+	@Test
+	void concurrentAddsKeepEveryBitAndCountEachOnce() throws Exception {
+		int threads = 8;
+		int perThread = 5_000;
+		BloomFilter concurrent = new BloomFilter(threads * perThread, 0.01);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> adds = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				// Interleaved values, so threads keep setting bits in the same words
+				adds.add(executor.submit(() -> {
+					start.await();
+					for (int i = thread; i < threads * perThread; i += threads) {
+						concurrent.add("user" + i);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> add : adds) {
+				add.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		BloomFilter sequential = new BloomFilter(threads * perThread, 0.01);
+		for (int i = 0; i < threads * perThread; i++) {
+			sequential.add("user" + i);
+			assertTrue(concurrent.mightContain("user" + i), "user" + i);
+		}
+		// Same bits set, and each set bit counted exactly once
+		assertEquals(sequential.expectedFalsePositiveRate(), concurrent.expectedFalsePositiveRate());
+	}
+}
@@ -0,0 +1,97 @@
+package com.cryptospirosis.notes.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.cryptospirosis.notes.entity.NoteBodyConverter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class NoteBodyCodecTests {
+
+	private final NoteBodyCodec codec = new NoteBodyCodec(64, new SimpleMeterRegistry());
+
+	@Test
+	void shortBodyIsStoredAsPlainUtf8() {
+		String body = "Café receipt, 63 bytes or fewer so it stays below the threshold";
+		byte[] stored = codec.encode(body);
+
+		assertArrayEquals(body.getBytes(StandardCharsets.UTF_8), stored);
+		assertFalse(codec.isCompressed(stored));
+		assertEquals(body, codec.decode(stored));
+	}
+
+	@Test
+	void bodyAtTheThresholdIsCompressedAndRoundTrips() {
+		String atThreshold = "x".repeat(64);
+		String large = "Payment to Søren for invoice 42 ✓\n".repeat(500);
+
+		for (String body : new String[] { atThreshold, large }) {
+			byte[] stored = codec.encode(body);
+			assertTrue(codec.isCompressed(stored));
+			assertTrue(stored.length < body.getBytes(StandardCharsets.UTF_8).length);
+			assertEquals(body, codec.decode(stored));
+		}
+	}
+
+	@Test
+	void incompressibleBodyFallsBackToTheRawBytes() {
+		// Too little redundancy to pay for the header and the deflate framing
+		String body = "q8Zx!r2Lp0@vT5mK-w9Yc#j3Nb6&hU1eS$g7Fd4%aQ0iO)zR8tE^";
+		NoteBodyCodec lowThreshold = new NoteBodyCodec(16, new SimpleMeterRegistry());
+		byte[] stored = lowThreshold.encode(body);
+
+		assertArrayEquals(body.getBytes(StandardCharsets.UTF_8), stored);
+		assertFalse(lowThreshold.isCompressed(stored));
+		assertEquals(body, lowThreshold.decode(stored));
+	}
+
+	@Test
+	void legacyPlainRowReadsThroughTheConverter() {
+		NoteBodyConverter converter = new NoteBodyConverter(codec);
+		String legacy = "Written before compression: plain UTF-8, well above the threshold. ".repeat(10);
+
+		assertEquals(legacy, converter.convertToEntityAttribute(legacy.getBytes(StandardCharsets.UTF_8)));
+		assertEquals("", converter.convertToEntityAttribute(new byte[0]));
+		assertEquals(null, converter.convertToEntityAttribute(null));
+		assertEquals(legacy, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(legacy)));
+	}
+
+	@Test
+	void truncatedBodyIsRejected() {
+		byte[] stored = codec.encode("a fairly repetitive body ".repeat(100));
+		byte[] truncated = Arrays.copyOf(stored, stored.length / 2);
+
+		assertThrows(IllegalStateException.class, () -> codec.decode(truncated));
+	}
+
+	@Test
+	void corruptBodyIsRejected() {
+		byte[] stored = codec.encode("a fairly repetitive body ".repeat(100));
+
+		byte[] garbled = stored.clone();
+		for (int i = 6; i < garbled.length; i++) {
+			garbled[i] = (byte) ~garbled[i];
+		}
+		assertThrows(IllegalStateException.class, () -> codec.decode(garbled));
+
+		byte[] unknownCodec = stored.clone();
+		unknownCodec[1] = 2;
+		assertThrows(IllegalStateException.class, () -> codec.decode(unknownCodec));
+
+		for (int length : new int[] { -1, Integer.MAX_VALUE }) {
+			byte[] badLength = stored.clone();
+			ByteBuffer.wrap(badLength, 2, 4).putInt(length);
+			assertThrows(IllegalStateException.class, () -> codec.decode(badLength));
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.cryptospirosis.notes.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.cryptospirosis.notes.repository.UserRepository;
+import com.cryptospirosis.notes.repository.UserRepository.UserIdentity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserAvailabilityFilterTests {
+
+	// Pairs utf8mb4_0900_ai_ci compares as equal: the UCA gives them the same primary weights
+	private static final String[][] EQUAL_UNDER_COLUMN_COLLATION = {
+			{ "JoseSmith", "josesmith" },
+			{ "José", "jose" },
+			{ "Ångström", "angstrom" },
+			{ "Zoë", "zoe" },
+			{ "Çelik", "celik" },
+			{ "ﬁle", "file" }, // ﬁ ligature
+			{ "ｊｏｓｅ", "jose" }, // fullwidth
+			{ "Straße", "strasse" },
+			{ "STRASSE", "straße" },
+			{ "Søren", "soren" },
+			{ "SØREN", "soren" },
+			{ "Łukasz", "lukasz" },
+			{ "łódź", "lodz" },
+			{ "Đorđe", "dorde" },
+			{ "Ðan", "dan" },
+			{ "Æsir", "aesir" },
+			{ "æ", "AE" },
+			{ "Œuvre", "oeuvre" },
+			{ "Ħal", "hal" },
+			{ "Ŧ", "t" },
+			{ "søren@Example.COM", "soren@example.com" },
+			{ " jose ", "jose" },
+	};
+
+	@Test
+	void valuesTheColumnCollationEqualsShareAKey() {
+		for (String[] pair : EQUAL_UNDER_COLUMN_COLLATION) {
+			assertEquals(UserAvailabilityFilter.normalize(pair[1]), UserAvailabilityFilter.normalize(pair[0]),
+					pair[0] + " = " + pair[1]);
+		}
+	}
+
+	@Test
+	void distinctValuesKeepDistinctKeys() {
+		assertNotEquals(UserAvailabilityFilter.normalize("jose"), UserAvailabilityFilter.normalize("josef"));
+		assertNotEquals(UserAvailabilityFilter.normalize("a b"), UserAvailabilityFilter.normalize("ab"));
+	}
+
+	@Test
+	void collationEqualValueIsNeverReportedFree() {
+		UserRepository users = mock(UserRepository.class);
+		when(users.streamAllIdentities()).thenAnswer(invocation -> Stream.of(identity("Søren", "Søren@example.com")));
+		UserAvailabilityFilter filter = filter(users);
+		filter.rebuild();
+
+		assertTrue(filter.usernameExists("soren", value -> true));
+		assertTrue(filter.emailExists("SOREN@example.com", value -> true));
+		assertFalse(filter.usernameExists("sorensen", value -> true));
+	}
+
+	@Test
+	void userRecordedDuringARebuildSurvivesIt() {
+		UserRepository users = mock(UserRepository.class);
+		UserAvailabilityFilter filter = filter(users);
+		// The rebuild's snapshot predates the insert; the user is recorded while the scan is still running
+		when(users.streamAllIdentities()).thenAnswer(invocation -> Stream.of(identity("early", "early@example.com"))
+				.peek(identity -> filter.record("late", "late@example.com")));
+		filter.rebuild();
+
+		assertTrue(filter.usernameExists("early", value -> true));
+		assertTrue(filter.usernameExists("late", value -> true));
+		assertTrue(filter.emailExists("late@example.com", value -> true));
+	}
+
+	@Test
+	void userRecordedOnAnotherThreadDuringARebuildSurvivesIt() throws Exception {
+		UserRepository users = mock(UserRepository.class);
+		UserAvailabilityFilter filter = filter(users);
+		when(users.streamAllIdentities()).thenAnswer(invocation -> Stream.of(identity("early", "early@example.com")));
+		filter.rebuild();
+
+		when(users.streamAllIdentities()).thenAnswer(invocation -> Stream.of(identity("early", "early@example.com"))
+				.peek(identity -> {
+					Thread writer = new Thread(() -> filter.record("late", "late@example.com"));
+					writer.start();
+					try {
+						writer.join();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}));
+		filter.rebuild();
+
+		assertTrue(filter.usernameExists("late", value -> true));
+	}
+
+	@Test
+	void everyProbeGoesToTheDatabaseBeforeTheFirstBuild() {
+		UserAvailabilityFilter filter = filter(mock(UserRepository.class));
+		assertTrue(filter.usernameExists("anyone", value -> true));
+		assertFalse(filter.usernameExists("anyone", value -> false));
+	}
+
+	private static UserAvailabilityFilter filter(UserRepository users) {
+		return new UserAvailabilityFilter(users, mock(PlatformTransactionManager.class), new SimpleMeterRegistry(),
+				0.01, 1000);
+	}
+
+	private static UserIdentity identity(String username, String email) {
+		return new UserIdentity() {
+			@Override
+			public String getUsername() {
+				return username;
+			}
+
+			@Override
+			public String getEmail() {
+				return email;
+			}
+		};
+	}
+}
@@ -5,6 +5,7 @@ import './Dashboard.css';
 
 const Dashboard = () => {
   const [authState, setAuthState] = useState(authService.getAuthState());
+  const [dashboard, setDashboard] = useState(null);
   const navigate = useNavigate();
 
   // Subscribe to auth state
@@ -19,6 +20,17 @@ const Dashboard = () => {
     return unsubscribe;
   }, [navigate, authState.isAuthenticated, authState.loading]);
 
+  // User, newest notes and totals in one request, revalidated with its ETag
+  useEffect(() => {
+    if (authState.isAuthenticated) {
+      authService.getDashboard()
+        .then(setDashboard)
+        .catch(err => console.error(err));
+    }
+  }, [authState.isAuthenticated]);
+
+  const user = dashboard?.user || authState.user;
+
   const handleLogout = () => {
     authService.logout();
     navigate('/login');
@@ -48,7 +60,7 @@ const Dashboard = () => {
           <h1>Cryptospirosis Notes</h1>
           <div className="header-actions">
             <span className="user-greeting">
-              Welcome, {authState.user?.username || 'User'}!
+              Welcome, {user?.username || 'User'}!
             </span>
             <button onClick={handleLogout} className="logout-button">
               Logout
@@ -62,23 +74,35 @@ const Dashboard = () => {
           <div className="welcome-card">
             <h2>Welcome to your Dashboard</h2>
             <p>
-              Hello <strong>{authState.user?.username}</strong>, you have successfully logged in!
+              Hello <strong>{user?.username}</strong>, you have successfully logged in!
             </p>
 
             <div className="user-info">
               <h3>Your Account Information:</h3>
               <div className="info-item">
                 <span className="info-label">Username:</span>
-                <span className="info-value">{authState.user?.username}</span>
+                <span className="info-value">{user?.username}</span>
               </div>
               <div className="info-item">
                 <span className="info-label">Email:</span>
-                <span className="info-value">{authState.user?.email}</span>
+                <span className="info-value">{user?.email}</span>
               </div>
               <div className="info-item">
                 <span className="info-label">User ID:</span>
-                <span className="info-value">{authState.user?.userId}</span>
+                <span className="info-value">{user?.userId}</span>
               </div>
+              {dashboard && (
+                <>
+                  <div className="info-item">
+                    <span className="info-label">Notes:</span>
+                    <span className="info-value">{dashboard.totals.noteCount}</span>
+                  </div>
+                  <div className="info-item">
+                    <span className="info-label">Linked Payments:</span>
+                    <span className="info-value">{dashboard.totals.totalAmount} ADA</span>
+                  </div>
+                </>
+              )}
             </div>
 
             <div className="dashboard-actions">
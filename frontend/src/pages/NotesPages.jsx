@@ -1,11 +1,12 @@
 import React, { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { authService } from '../services/authService';
+import API, { authService } from '../services/authService';
 import '../components/Dashboard.css';
 import './NotesPages.css';
 
 const NotesPages = () => {
   const [notes, setNotes] = useState([]);
+  const [totalNotes, setTotalNotes] = useState(0);
   const [searchTerm, setSearchTerm] = useState(""); // 🔍 search bar input
   const [editingNote, setEditingNote] = useState(null);
   const [title, setTitle] = useState("");
@@ -15,15 +16,29 @@ const NotesPages = () => {
   const navigate = useNavigate();
   const user = authService.getAuthState().user;
 
+  // Newest notes (without bodies) and the note count come with the dashboard in one request
   useEffect(() => {
     if (user) {
-      fetch(`http://localhost:8080/api/notes/user/${user.userId}`)
-        .then(res => res.json())
-        .then(data => setNotes(data))
+      authService.getDashboard()
+        .then(data => {
+          setNotes(data.notes);
+          setTotalNotes(data.totals.noteCount);
+        })
         .catch(err => console.error(err));
     }
   }, [user]);
 
+  // Every note with its body, for users with more notes than the dashboard shows
+  const loadAllNotes = async () => {
+    try {
+      const res = await API.get(`/notes/user/${user.userId}`);
+      setNotes(res.data);
+      setTotalNotes(res.data.length);
+    } catch (err) {
+      console.error(err);
+    }
+  };
+
   // 🔴 DELETE
   const handleDelete = async (id) => {
     if (!window.confirm("Are you sure you want to delete this note?")) return;
@@ -35,6 +50,7 @@ const NotesPages = () => {
 
       if (res.ok) {
         setNotes(notes.filter((n) => n.notesId !== id));
+        setTotalNotes(totalNotes - 1);
       } else {
         console.error("Failed to delete note");
       }
@@ -43,8 +59,17 @@ const NotesPages = () => {
     }
   };
 
-  // ✏️ OPEN MODAL for editing
-  const openEditModal = (note) => {
+  // ✏️ OPEN MODAL for editing; dashboard summaries carry no body, so load the full note first
+  const openEditModal = async (summary) => {
+    let note = summary;
+    if (note.body === undefined) {
+      try {
+        note = (await API.get(`/notes/${summary.notesId}`)).data;
+      } catch (err) {
+        console.error(err);
+        return;
+      }
+    }
     setEditingNote(note);
     setTitle(note.title);
     setBody(note.body);
@@ -91,7 +116,8 @@ const NotesPages = () => {
   const filteredNotes = notes.filter(
     (note) =>
       note.title.toLowerCase().includes(searchTerm.toLowerCase()) ||
-      note.body.toLowerCase().includes(searchTerm.toLowerCase())
+      (note.body || '').toLowerCase().includes(searchTerm.toLowerCase()) ||
+      (note.payeeAddress || '').toLowerCase().includes(searchTerm.toLowerCase())
   );
 
   return (
@@ -132,6 +158,11 @@ const NotesPages = () => {
                   <div className="notes-meta">
                     <span>{filteredNotes.length}</span> showing
                   </div>
+                  {totalNotes > notes.length && (
+                    <button className="notes-btn secondary" onClick={loadAllNotes}>
+                      Show all {totalNotes}
+                    </button>
+                  )}
                 </div>
 
                 {filteredNotes.length === 0 ? (
@@ -149,7 +180,7 @@ const NotesPages = () => {
                             <h3>{note.title}</h3>
                             <time>{new Date(note.createdAt).toLocaleString()}</time>
                           </div>
-                          <p className="note-card__body">{note.body}</p>
+                          {note.body && <p className="note-card__body">{note.body}</p>}
 
                           {(note.payeeAddress || note.payeeAmount) && (
                             <div className="note-card__payment">
@@ -45,6 +45,9 @@ let authState = {
 // Authentication listeners for state changes
 const authListeners = [];
 
+// Last dashboard response and its ETag, revalidated with If-None-Match
+let dashboardCache = null;
+
 const notifyAuthListeners = () => {
   authListeners.forEach(listener => listener(authState));
 };
@@ -79,8 +82,8 @@ export const authService = {
           authState.user = userData;
           authState.isAuthenticated = true;
         } else {
-          // If token exists but no user data, fetch from API
-          const currentUser = await authService.getCurrentUser();
+          // If token exists but no user data, fetch it with the rest of the dashboard
+          const { user: currentUser } = await authService.getDashboard();
           authState.user = currentUser;
           authState.isAuthenticated = true;
           localStorage.setItem('user', JSON.stringify(currentUser));
@@ -107,6 +110,7 @@ export const authService = {
       });
 
       if (response.data.token && response.data.user) {
+        dashboardCache = null;
         localStorage.setItem('token', response.data.token);
         localStorage.setItem('user', JSON.stringify(response.data.user));
         authState.user = response.data.user;
@@ -161,8 +165,28 @@ export const authService = {
     }
   },
 
+  // Get the user, newest notes and payment totals in one request. A 304 for the
+  // cached ETag reuses the last response.
+  getDashboard: async () => {
+    try {
+      const response = await API.get('/dashboard', {
+        headers: dashboardCache ? { 'If-None-Match': dashboardCache.etag } : {},
+        validateStatus: (status) => (status >= 200 && status < 300) || status === 304,
+      });
+      if (response.status === 304 && dashboardCache) {
+        return dashboardCache.data;
+      }
+      const etag = response.headers.etag;
+      dashboardCache = etag ? { etag, data: response.data } : null;
+      return response.data;
+    } catch (error) {
+      throw error.response?.data || error.message;
+    }
+  },
+
   // Logout user
   logout: () => {
+    dashboardCache = null;
     localStorage.removeItem('token');
     localStorage.removeItem('user');
     authState.user = null;
@@ -2,10 +2,11 @@ import API from './authService';
 
 // User CRUD operations
 export const userService = {
-  // Get all users
-  getAllUsers: async () => {
+  // Get one page of users: { after, limit } and optionally a username or email prefix.
+  // The next page starts after the last userId (or username / email when searching).
+  getAllUsers: async (params = {}) => {
     try {
-      const response = await API.get('/users');
+      const response = await API.get('/users', { params });
       return response.data;
     } catch (error) {
       throw error.response?.data || error.message;